@@ -0,0 +1,118 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.CsvColumns;
+import utils.CsvRow;
+import utils.CsvRowReader;
+import utils.CsvUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CsvUtils read/write/copy paths over output-shaped CSVs (posts x roster
+ * columns). readCsvSerial, streamCsv and copyStreams1k are the old
+ * single-threaded paths; readColumns and copyCsvFile are the mapped parallel
+ * parse and the transferTo copy. readCsv is whichever path CsvUtils picks:
+ * the serial one below csv.parallel.minMb, the mapped one from there on (the
+ * largest files here are well above it).
+ */
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    int roster;
+
+    @Param({"10", "500"})
+    int posts;
+
+    private Path dir;
+    private String input;
+    private String output;
+    private String copy;
+    private List<Map<String, String>> rows;
+
+    @Setup
+    public void setup() {
+        dir = SyntheticData.tempDir();
+        rows = SyntheticData.rows(SyntheticData.roster(roster), posts, 42);
+        input = dir.resolve("input.csv").toString();
+        output = dir.resolve("output.csv").toString();
+        copy = dir.resolve("copy.csv").toString();
+        SyntheticData.write(Path.of(input), rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticData.delete(dir);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> readCsv() {
+        return CsvUtils.readCsv(input);
+    }
+
+    /* What readCsv does for files below csv.parallel.minMb, at every size. */
+    @Benchmark
+    public List<Map<String, String>> readCsvSerial() {
+        List<Map<String, String>> data = new ArrayList<>();
+        try (CsvRowReader reader = CsvUtils.streamCsv(input)) {
+            for (CsvRow row : reader) {
+                data.add(row.toMap());
+            }
+        }
+        return data;
+    }
+
+    @Benchmark
+    public CsvColumns readColumns() {
+        return CsvUtils.readColumns(input);
+    }
+
+    @Benchmark
+    public void streamCsv(Blackhole blackhole) {
+        try (CsvRowReader reader = CsvUtils.streamCsv(input)) {
+            for (CsvRow row : reader) {
+                blackhole.consume(row.get(0));
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeCsv() {
+        CsvUtils.writeCsv(output, rows);
+    }
+
+    @Benchmark
+    public boolean copyCsvFile() {
+        return CsvUtils.copyCsvFile(input, copy);
+    }
+
+    /* The copy loop copyCsvFile used before transferTo. */
+    @Benchmark
+    public void copyStreams1k() throws IOException {
+        try (
+                BufferedInputStream in = new BufferedInputStream(new FileInputStream(input));
+                BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(copy))
+        ) {
+            byte[] buffer = new byte[1024];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+        }
+    }
+}
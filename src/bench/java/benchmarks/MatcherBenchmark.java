@@ -0,0 +1,42 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.EngagementMatcher;
+
+import java.util.List;
+
+/** Building an EngagementMatcher from a post's engagers and marking every roster column. */
+@State(Scope.Benchmark)
+public class MatcherBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    int roster;
+
+    @Param({"10", "500"})
+    int engagers;
+
+    @Param({"false", "true"})
+    boolean fuzzy;
+
+    private List<String> rosterNames;
+    private List<String> engagerNames;
+
+    @Setup
+    public void setup() {
+        rosterNames = SyntheticData.roster(roster);
+        engagerNames = SyntheticData.engagers(rosterNames, engagers, 42);
+    }
+
+    @Benchmark
+    public void markRoster(Blackhole blackhole) {
+        EngagementMatcher matcher = new EngagementMatcher(engagerNames, fuzzy, 0.85);
+        for (String name : rosterNames) {
+            blackhole.consume(matcher.match(name).isMatched());
+        }
+    }
+}
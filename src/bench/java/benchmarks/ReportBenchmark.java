@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import utils.CsvToHtmlConverter;
+import utils.HtmlReportGenerator;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report generation: the full CSV-to-HTML conversion (read + pivot + render)
+ * and HtmlReportGenerator on its own over an already pivoted table.
+ */
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    int roster;
+
+    @Param({"10", "500"})
+    int posts;
+
+    private Path dir;
+    private String input;
+    private String output;
+    private String[] headers;
+    private List<String[]> table;
+
+    @Setup
+    public void setup() {
+        dir = SyntheticData.tempDir();
+        List<Map<String, String>> rows = SyntheticData.rows(SyntheticData.roster(roster), posts, 42);
+        input = dir.resolve("input.csv").toString();
+        output = dir.resolve("report.html").toString();
+        SyntheticData.write(Path.of(input), rows);
+
+        // pivoted like CsvToHtmlConverter: one row per field, one column per post
+        List<String> fields = new ArrayList<>(rows.get(0).keySet());
+        fields.remove("PostUrl");
+        headers = new String[posts + 1];
+        headers[0] = "Field";
+        for (int p = 0; p < posts; p++) {
+            headers[p + 1] = rows.get(p).get("PostUrl");
+        }
+        table = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            String[] line = new String[posts + 1];
+            line[0] = field;
+            for (int p = 0; p < posts; p++) {
+                line[p + 1] = rows.get(p).get(field);
+            }
+            table.add(line);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticData.delete(dir);
+    }
+
+    @Benchmark
+    public void generateReport() {
+        CsvToHtmlConverter.generateReport(input, output, "Likes with 'Yes %'");
+    }
+
+    @Benchmark
+    public void generateHtmlReport() {
+        HtmlReportGenerator.generateHtmlReport(output, table, headers, posts, 0, "Likes with 'Yes %'");
+    }
+}
@@ -0,0 +1,120 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic, offline stand-ins for userData.csv and the Output*.csv files:
+ * one row per post, one YES/NO column per roster user. The same seed always
+ * gives the same data, so runs are comparable.
+ */
+final class SyntheticData {
+
+    private static final String[] FIRST = {"Anita", "Rahul", "José", "Zoë", "Priya", "Vasanth", "Chloé", "Arjun"};
+    private static final String[] LAST = {"Kumar", "Müller", "O'Brien", "Reddy", "García", "Nair", "Smith", "Iyer"};
+
+    private SyntheticData() {
+    }
+
+    /** Unique roster names, some with accents and apostrophes. */
+    static List<String> roster(int size) {
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length] + " " + i);
+        }
+        return names;
+    }
+
+    /**
+     * Engager names as scraped from a post: a sample of the roster with mixed
+     * case, stray whitespace and emoji, plus names that are not on the roster.
+     */
+    static List<String> engagers(List<String> roster, int size, long seed) {
+        Random random = new Random(seed);
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(4) == 0 || roster.isEmpty()) {
+                names.add("Outsider " + i);
+                continue;
+            }
+            String name = roster.get(random.nextInt(roster.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> names.add(name.toUpperCase());
+                case 1 -> names.add("  " + name.replace(" ", "  ") + " 🚀");
+                default -> names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /** Output-style rows: PostUrl, Total, one YES/NO column per roster user, Yes %, timestamp. */
+    static List<Map<String, String>> rows(List<String> roster, int posts, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, String>> rows = new ArrayList<>(posts);
+        for (int p = 0; p < posts; p++) {
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("PostUrl", "https://www.linkedin.com/feed/update/urn:li:activity:" + (7_100_000_000_000_000_000L + p));
+            row.put("Total", Integer.toString(random.nextInt(2_000)));
+            int yes = 0;
+            for (String name : roster) {
+                boolean engaged = random.nextInt(3) == 0;
+                if (engaged) yes++;
+                row.put(name, engaged ? "YES" : "NO");
+            }
+            row.put("Yes %", String.format("%.2f%%", roster.isEmpty() ? 0 : yes * 100.0 / roster.size()));
+            row.put("Executed At (IST)", "17-10-2026 11:00:00");
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** Writes rows as CSV without going through the code under test. */
+    static void write(Path path, List<Map<String, String>> rows) {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(csvLine(rows.get(0).keySet()));
+            for (Map<String, String> row : rows) {
+                writer.write(csvLine(row.values()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvLine(Iterable<String> values) {
+        StringBuilder line = new StringBuilder();
+        for (String value : values) {
+            if (line.length() > 0) line.append(',');
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append("\r\n").toString();
+    }
+
+    static Path tempDir() {
+        try {
+            return Files.createTempDirectory("linkedin-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void delete(Path dir) {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package utils;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ceilings for the named waits of {@link WaitEngine}, derived from how long
+ * each wait actually took. The most recent durations per wait are kept across
+ * runs in timeouts.file, and once a wait has timeouts.minSamples of them its
+ * ceiling becomes p(timeouts.percentile) × timeouts.safetyFactor, no lower
+ * than timeouts.floor.ms and never above the ceiling the caller passed in.
+ *
+ * <p>A timeout is recorded as a censored sample at the ceiling it hit: the
+ * wait took at least that long, so the percentile, and with it the ceiling,
+ * grows instead of only ever shrinking. After timeouts.fallbackAfter
+ * timeouts in a row the wait gets the caller's full ceiling until it next
+ * succeeds, so a site that became slower is not cut short while the window
+ * catches up. A wait with too few samples keeps the caller's ceiling.</p>
+ */
+public class AdaptiveTimeouts {
+
+    private static final boolean ENABLED = ConfigReader.getBoolean("timeouts.adaptive", true);
+    private static final String FILE = ConfigReader.get("timeouts.file", "src/test/resources/testOutput/WaitTimeouts.csv");
+    private static final double PERCENTILE = Double.parseDouble(ConfigReader.get("timeouts.percentile", "99"));
+    private static final double SAFETY_FACTOR = Double.parseDouble(ConfigReader.get("timeouts.safetyFactor", "2.0"));
+    private static final int MIN_SAMPLES = ConfigReader.getInt("timeouts.minSamples", 20);
+    private static final long FLOOR_MILLIS = ConfigReader.getInt("timeouts.floor.ms", 500);
+    private static final int WINDOW = ConfigReader.getInt("timeouts.window", 500);
+    private static final int FALLBACK_AFTER = ConfigReader.getInt("timeouts.fallbackAfter", 3);
+
+    private static final Map<String, Samples> WAITS = new TreeMap<>();
+
+    static {
+        load();
+        ReportSections.register("Wait timeouts", AdaptiveTimeouts::reportRows);
+    }
+
+    private AdaptiveTimeouts() {
+    }
+
+    /* Last WINDOW durations (ms) of one wait, timeouts at their ceiling. */
+    private static class Samples {
+
+        final long[] millis = new long[WINDOW];
+        int size;
+        int next;
+        long defaultMillis;
+        long chosenMillis;
+        int calls;
+        int timeouts;
+        int timeoutsInARow;
+
+        void add(long value) {
+            millis[next] = value;
+            next = (next + 1) % millis.length;
+            size = Math.min(size + 1, millis.length);
+        }
+
+        long percentile(double percentile) {
+            if (size == 0) return 0;
+            long[] sorted = Arrays.copyOf(millis, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * size);
+            return sorted[Math.max(0, Math.min(size, rank) - 1)];
+        }
+
+        /* In insertion order, so a reload keeps the newest WINDOW. */
+        List<Long> ordered() {
+            List<Long> values = new ArrayList<>(size);
+            int start = size < millis.length ? 0 : next;
+            for (int i = 0; i < size; i++) values.add(millis[(start + i) % millis.length]);
+            return values;
+        }
+    }
+
+    /* ================= CEILINGS ================= */
+
+    /** The ceiling to use for the named wait; {@code ceiling} is the default and the upper bound. */
+    public static synchronized Duration ceiling(String name, Duration ceiling) {
+        Samples samples = WAITS.computeIfAbsent(name, k -> new Samples());
+        samples.defaultMillis = ceiling.toMillis();
+        samples.calls++;
+
+        long chosen = ceiling.toMillis();
+        if (ENABLED && samples.size >= MIN_SAMPLES && samples.timeoutsInARow < FALLBACK_AFTER) {
+            long adaptive = (long) Math.ceil(samples.percentile(PERCENTILE) * SAFETY_FACTOR);
+            chosen = Math.min(chosen, Math.max(FLOOR_MILLIS, adaptive));
+        }
+        samples.chosenMillis = chosen;
+        return Duration.ofMillis(chosen);
+    }
+
+    /**
+     * Called by WaitEngine after every named wait; {@code ceiling} is the one
+     * {@link #ceiling} chose for it.
+     */
+    static synchronized void record(String name, Duration actual, Duration ceiling, boolean met) {
+        Samples samples = WAITS.computeIfAbsent(name, k -> new Samples());
+        if (met) {
+            samples.add(actual.toMillis());
+            samples.timeoutsInARow = 0;
+        } else {
+            samples.add(Math.max(actual.toMillis(), ceiling.toMillis()));
+            samples.timeouts++;
+            samples.timeoutsInARow++;
+        }
+    }
+
+    /* ================= PERSISTENCE ================= */
+
+    private static void load() {
+        if (!new File(FILE).exists()) return;
+        try {
+            for (Map<String, String> row : CsvUtils.readCsv(FILE)) {
+                Samples samples = WAITS.computeIfAbsent(row.get("Wait"), k -> new Samples());
+                for (String value : row.getOrDefault("Samples (ms)", "").split(";")) {
+                    if (!value.isBlank()) samples.add(Long.parseLong(value.trim()));
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Ignoring unreadable " + FILE + ": " + e.getMessage());
+        }
+    }
+
+    /** Saves the sample window of every wait for the next run. */
+    public static synchronized void save() {
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Map.Entry<String, Samples> wait : WAITS.entrySet()) {
+            if (wait.getValue().size == 0) continue;
+            StringBuilder values = new StringBuilder();
+            for (long value : wait.getValue().ordered()) {
+                if (values.length() > 0) values.append(';');
+                values.append(value);
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("Wait", wait.getKey());
+            row.put("Samples (ms)", values.toString());
+            rows.add(row);
+        }
+        if (rows.isEmpty()) return;
+        File parent = new File(FILE).getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        CsvUtils.writeCsv(FILE, rows);
+    }
+
+    /* ================= REPORT ================= */
+
+    private static synchronized List<String[]> reportRows() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Wait", "Samples", "p50 (ms)", "p" + format(PERCENTILE) + " (ms)",
+                "Default (ms)", "Chosen (ms)", "Calls", "Hit ceiling"});
+        for (Map.Entry<String, Samples> wait : WAITS.entrySet()) {
+            Samples samples = wait.getValue();
+            if (samples.calls == 0) continue;   // loaded from file but not used this run
+            rows.add(new String[]{
+                    wait.getKey(),
+                    Integer.toString(samples.size),
+                    Long.toString(samples.percentile(50)),
+                    Long.toString(samples.percentile(PERCENTILE)),
+                    Long.toString(samples.defaultMillis),
+                    Long.toString(samples.chosenMillis),
+                    Integer.toString(samples.calls),
+                    Integer.toString(samples.timeouts)
+            });
+        }
+        return rows.size() == 1 ? Collections.emptyList() : rows;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
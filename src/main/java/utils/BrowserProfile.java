@@ -0,0 +1,119 @@
+package utils;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the browser sessions are started. browser.profile picks a named profile
+ * and each setting is read from browser.&lt;profile&gt;.&lt;setting&gt;:
+ *
+ * <ul>
+ *     <li>headless - run without a window</li>
+ *     <li>pageLoadStrategy - normal / eager / none</li>
+ *     <li>windowSize - e.g. 1366x900; empty maximizes the window</li>
+ *     <li>implicitWaitSeconds - 0 by default: every wait is an explicit, named
+ *     WaitEngine wait, and an implicit wait would stack under each poll</li>
+ *     <li>blockImages - turns image loading off in the renderer</li>
+ *     <li>blockedUrls - comma-separated URL patterns ('*' wildcards) that
+ *     DevTools fails before they hit the network (media, fonts, trackers ...)</li>
+ * </ul>
+ *
+ * The "default" profile with no settings behaves like the original setup,
+ * except that it no longer sets an implicit wait.
+ */
+public class BrowserProfile {
+
+    private final String name;
+    private final boolean headless;
+    private final PageLoadStrategy pageLoadStrategy;
+    private final String windowSize;
+    private final Duration implicitWait;
+    private final boolean blockImages;
+    private final List<String> blockedUrls = new ArrayList<>();
+
+    private BrowserProfile(String name) {
+        this.name = name;
+        String prefix = "browser." + name + ".";
+        this.headless = ConfigReader.getBoolean(prefix + "headless", false);
+        this.pageLoadStrategy = PageLoadStrategy.fromString(
+                ConfigReader.get(prefix + "pageLoadStrategy", "normal").toLowerCase());
+        this.windowSize = ConfigReader.get(prefix + "windowSize", "");
+        this.implicitWait = Duration.ofSeconds(ConfigReader.getInt(prefix + "implicitWaitSeconds", 0));
+        this.blockImages = ConfigReader.getBoolean(prefix + "blockImages", false);
+        for (String pattern : ConfigReader.get(prefix + "blockedUrls", "").split(",")) {
+            if (!pattern.isBlank()) blockedUrls.add(pattern.trim());
+        }
+        if (pageLoadStrategy == null) {
+            throw new RuntimeException("Invalid " + prefix + "pageLoadStrategy: "
+                    + ConfigReader.get(prefix + "pageLoadStrategy"));
+        }
+    }
+
+    /** The profile named by browser.profile (overridable with -Dbrowser.profile=lean). */
+    public static BrowserProfile fromConfig() {
+        return new BrowserProfile(ConfigReader.get("browser.profile", "default"));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /* ================= BEFORE START ================= */
+
+    public ChromeOptions toChromeOptions() {
+        ChromeOptions options = new ChromeOptions();
+        options.setPageLoadStrategy(pageLoadStrategy);
+        if (headless) {
+            options.addArguments("--headless=new");
+        }
+        if (!windowSize.isEmpty()) {
+            options.addArguments("--window-size=" + windowSize.replace('x', ','));
+        }
+        if (blockImages) {
+            options.addArguments("--blink-settings=imagesEnabled=false");
+        }
+        return options;
+    }
+
+    /* ================= AFTER START ================= */
+
+    /** Sets the window and timeouts, and installs URL blocking on Chromium browsers. */
+    public void applyTo(WebDriver driver) {
+        if (windowSize.isEmpty()) {
+            driver.manage().window().maximize();
+        } else if (!headless) {
+            String[] size = windowSize.split("x");
+            driver.manage().window().setSize(new Dimension(Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim())));
+        }
+        driver.manage().timeouts().implicitlyWait(implicitWait);
+
+        if (driver instanceof ChromiumDriver) {
+            ChromiumDriver chromium = (ChromiumDriver) driver;
+
+            // keep every resource entry so PageLoadStats can add up the whole visit
+            chromium.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument",
+                    Map.of("source", "performance.setResourceTimingBufferSize(100000);"));
+
+            if (!blockedUrls.isEmpty()) {
+                chromium.executeCdpCommand("Network.enable", Map.of());
+                chromium.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockedUrls));
+            }
+        } else if (!blockedUrls.isEmpty()) {
+            System.out.println("URL blocking needs a Chromium browser; ignoring blockedUrls of profile " + name);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (headless=" + headless + ", pageLoad=" + pageLoadStrategy
+                + ", blockImages=" + blockImages + ", " + blockedUrls.size() + " blocked URL pattern(s))";
+    }
+}
@@ -0,0 +1,254 @@
+package utils;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, fsync'd journal of finished posts. Each record holds the time
+ * it was written, the PostUrl and the full result row. On open the journal is
+ * replayed (the latest record per post wins), so a rerun can reuse posts that
+ * finished recently instead of visiting them again.
+ *
+ * <p>Each record is one CSV line: {@code v1,<epochMillis>,<postUrl>,
+ * <column>,<value>,...,#}, with line breaks inside values escaped. The
+ * trailing marker lets replay ignore a line torn by a crash.</p>
+ */
+public class CheckpointJournal implements AutoCloseable {
+
+    private static final String VERSION = "v1";
+    private static final String END = "#";
+
+    /* ================= ONE FINISHED POST ================= */
+
+    public static class Record {
+
+        private final long writtenAt;
+        private final String postUrl;
+        private final Map<String, String> row;
+
+        Record(long writtenAt, String postUrl, Map<String, String> row) {
+            this.writtenAt = writtenAt;
+            this.postUrl = postUrl;
+            this.row = row;
+        }
+
+        public long getWrittenAt() {
+            return writtenAt;
+        }
+
+        public String getPostUrl() {
+            return postUrl;
+        }
+
+        /** A mutable copy of the journaled row. */
+        public Map<String, String> getRow() {
+            return new LinkedHashMap<>(row);
+        }
+    }
+
+    private final Path path;
+    private final Duration freshness;
+    private final Map<String, Record> latest = new HashMap<>();
+    private FileChannel channel;
+
+    /**
+     * Opens (creating if needed) the journal and replays it.
+     *
+     * @param freshness how old a record may be and still be reused; zero
+     *                  means never reuse (the journal is still written)
+     */
+    public CheckpointJournal(String filePath, Duration freshness) {
+        this.path = Paths.get(filePath);
+        this.freshness = freshness;
+
+        File parent = path.toFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+
+        try {
+            if (Files.exists(path)) replay();
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            terminateTornRecord();
+        } catch (IOException e) {
+            throw new RuntimeException("Journal open failed: " + filePath, e);
+        }
+    }
+
+    /** Opens the journal configured by journal.dir and journal.freshness.hours. */
+    public static CheckpointJournal fromConfig(String name) {
+        String dir = ConfigReader.get("journal.dir", "src/test/resources/testOutput/journal");
+        Duration freshness = Duration.ofHours(ConfigReader.getInt("journal.freshness.hours", 24));
+        return new CheckpointJournal(dir + "/" + name + ".journal", freshness);
+    }
+
+    /* ================= READ ================= */
+
+    private void replay() throws IOException {
+        int torn = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Record parsed = parse(line);
+                if (parsed == null) {
+                    torn++;
+                } else {
+                    latest.put(parsed.postUrl, parsed);
+                }
+            }
+        }
+        if (torn > 0) {
+            System.out.println("Journal " + path + ": ignored " + torn + " torn record(s)");
+        }
+        System.out.println("Replayed journal " + path + ": " + latest.size() + " post(s)");
+    }
+
+    private static Record parse(String line) {
+        List<String> record;
+        try (CSVParser parser = CSVParser.parse(line, CSVFormat.DEFAULT)) {
+            List<CSVRecord> records = parser.getRecords();
+            if (records.size() != 1) return null;
+            record = records.get(0).toList();
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            return null;
+        }
+
+        // version, time, url, column/value pairs, end marker
+        int size = record.size();
+        if (size < 4 || size % 2 != 0 || !VERSION.equals(record.get(0)) || !END.equals(record.get(size - 1))) {
+            return null;
+        }
+        try {
+            long writtenAt = Long.parseLong(record.get(1));
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 3; i + 1 < size - 1; i += 2) {
+                row.put(unescape(record.get(i)), unescape(record.get(i + 1)));
+            }
+            return new Record(writtenAt, unescape(record.get(2)), row);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /* A crash mid-write can leave a partial last line; start the next record on a fresh line. */
+    private void terminateTornRecord() throws IOException {
+        long size = channel.size();
+        if (size == 0) return;
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            reader.read(last, size - 1);
+        }
+        if (last.get(0) != '\n') {
+            channel.write(ByteBuffer.wrap("\r\n".getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+
+    /** The post's latest record if it is within the freshness window, else null. */
+    public synchronized Record findFresh(String postUrl) {
+        Record record = latest.get(postUrl);
+        if (record == null || freshness.isZero()) return null;
+        long age = System.currentTimeMillis() - record.writtenAt;
+        return age <= freshness.toMillis() ? record : null;
+    }
+
+    /**
+     * If the row's post has a fresh record covering all of the row's columns,
+     * copies the journaled values (and any extra journaled columns) into the
+     * row and returns true; otherwise leaves the row alone.
+     */
+    public boolean reuse(Map<String, String> row) {
+        String postUrl = row.get("PostUrl");
+        Record done = findFresh(postUrl);
+        if (done == null || !done.row.keySet().containsAll(row.keySet())) {
+            return false;
+        }
+        System.out.println("Reusing journaled result for " + postUrl);
+        for (Map.Entry<String, String> column : row.entrySet()) {
+            column.setValue(done.row.get(column.getKey()));
+        }
+        done.row.forEach(row::putIfAbsent);
+        return true;
+    }
+
+    /** Number of posts with at least one record. */
+    public synchronized int size() {
+        return latest.size();
+    }
+
+    /* ================= WRITE ================= */
+
+    /** Appends the post's row and forces it to disk before returning. */
+    public synchronized void append(String postUrl, Map<String, String> row) {
+        List<String> values = new ArrayList<>(4 + row.size() * 2);
+        long now = System.currentTimeMillis();
+        values.add(VERSION);
+        values.add(Long.toString(now));
+        values.add(escape(postUrl));
+        for (Map.Entry<String, String> entry : row.entrySet()) {
+            values.add(escape(entry.getKey()));
+            values.add(escape(entry.getValue()));
+        }
+        values.add(END);
+
+        String line = CSVFormat.DEFAULT.format(values.toArray()) + "\r\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Journal write failed", e);
+        }
+        latest.put(postUrl, new Record(now, postUrl, new LinkedHashMap<>(row)));
+    }
+
+    /* Line breaks are escaped so every record is exactly one physical line. */
+    private static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) return value;
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Journal close failed", e);
+        }
+    }
+}
@@ -18,7 +18,32 @@ public class ConfigReader {
         }
     }
 
+    /**
+     * Returns the value for the key. A JVM system property with the same name
+     * (e.g. -Dpool.size=4) overrides the value from config.properties.
+     */
     public static String get(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = get(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid integer for '" + key + "': " + value, e);
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        return Boolean.parseBoolean(value.trim());
     }
 }
@@ -0,0 +1,150 @@
+package utils;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes CSV rows one at a time and flushes after each, so every finished row
+ * is on disk even if the run dies later. The header is taken from the first
+ * row; later rows are written in that column order.
+ *
+ * <p>Rows that were appended out of order (a retried post finishing after the
+ * ones behind it) are put back in order with {@link #reorder} once the run
+ * is done.</p>
+ */
+public class CsvAppender implements AutoCloseable {
+
+    private final Path path;
+    private final boolean append;
+    private CSVPrinter printer;
+    private List<String> headers;
+    private long existingBytes;   // rows already in the file before this appender
+    private final List<List<String>> rows = new ArrayList<>();
+
+    /**
+     * @param append true to add rows to an existing file (its header is kept),
+     *               false to start the file afresh
+     */
+    CsvAppender(String filePath, boolean append) {
+        this.path = Paths.get(filePath);
+        this.append = append;
+
+        File parent = path.toFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+    }
+
+    /** Writes the row and flushes it to disk. */
+    public synchronized void append(Map<String, String> row) {
+        try {
+            if (printer == null) open(new ArrayList<>(row.keySet()));
+
+            List<String> values = values(row);
+            printer.printRecord(values);
+            printer.flush();
+            rows.add(values);
+        } catch (IOException e) {
+            throw new RuntimeException("CSV write failed", e);
+        }
+    }
+
+    public synchronized int getRowsWritten() {
+        return rows.size();
+    }
+
+    private List<String> values(Map<String, String> row) {
+        List<String> values = new ArrayList<>(headers.size());
+        for (String header : headers) {
+            String v = row.get(header);
+            values.add(v == null ? "" : v);
+        }
+        return values;
+    }
+
+    /**
+     * Rewrites the rows this appender wrote in the given order, normally the
+     * item order of the whole run. Nothing is rewritten if they are already
+     * in that order. Rows already in the file before this appender keep
+     * their place in front. The new file is written next to the old one and
+     * swapped in, so a crash leaves one or the other intact.
+     */
+    public synchronized void reorder(List<Map<String, String>> ordered) {
+        if (printer == null) return;
+        List<List<String>> wanted = new ArrayList<>(ordered.size());
+        for (Map<String, String> row : ordered) wanted.add(values(row));
+        if (wanted.equals(rows)) return;
+
+        Path tmp = Paths.get(path + ".tmp");
+        try {
+            printer.close();
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < existingBytes) {
+                    position += in.transferTo(position, existingBytes - position, out);
+                }
+            }
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+                 CSVPrinter rewrite = new CSVPrinter(writer, existingBytes > 0
+                         ? CSVFormat.DEFAULT
+                         : CSVFormat.DEFAULT.builder().setHeader(headers.toArray(new String[0])).build())) {
+                for (List<String> values : wanted) rewrite.printRecord(values);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            rows.clear();
+            rows.addAll(wanted);
+            printer = new CSVPrinter(Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND), CSVFormat.DEFAULT);
+        } catch (IOException e) {
+            throw new RuntimeException("CSV reorder failed", e);
+        }
+    }
+
+    private void open(List<String> rowHeaders) throws IOException {
+        boolean continuing = append && Files.exists(path) && Files.size(path) > 0;
+
+        if (continuing) {
+            try (CsvRowReader existing = new CsvRowReader(path.toString())) {
+                headers = existing.getSchema().headers();
+            }
+            existingBytes = Files.size(path);
+        } else {
+            headers = rowHeaders;
+        }
+
+        Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                continuing ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        CSVFormat format = continuing
+                ? CSVFormat.DEFAULT
+                : CSVFormat.DEFAULT.builder().setHeader(headers.toArray(new String[0])).build();
+        printer = new CSVPrinter(writer, format);
+        printer.flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (printer == null) return;
+        try {
+            printer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("CSV close failed", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A whole CSV file held column by column: one {@code String[]} per header,
+ * indexed by record (header excluded). Built by
+ * {@link CsvUtils#readColumns(String)}; short records read as "".
+ */
+public class CsvColumns {
+
+    private final CsvRow.Schema schema;
+    private final String[][] columns;
+    private final int rows;
+
+    CsvColumns(CsvRow.Schema schema, String[][] columns, int rows) {
+        this.schema = schema;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    public CsvRow.Schema getSchema() {
+        return schema;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public String get(int row, int column) {
+        return columns[column][row];
+    }
+
+    /** Value of the named column, or null if the file has no such column. */
+    public String get(int row, String header) {
+        int column = schema.indexOf(header);
+        return column < 0 ? null : columns[column][row];
+    }
+
+    /** The named column's values (shared, do not modify), or null if there is no such column. */
+    public String[] column(String header) {
+        int column = schema.indexOf(header);
+        return column < 0 ? null : columns[column];
+    }
+
+    /** A mutable, header-ordered copy of one record. */
+    public Map<String, String> row(int row) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int c = 0; c < columns.length; c++) map.put(schema.header(c), columns[c][row]);
+        return map;
+    }
+
+    /** Every record as a map, as {@link CsvUtils#readCsv(String)} returns them. */
+    public List<Map<String, String>> toMaps() {
+        List<Map<String, String>> maps = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) maps.add(row(r));
+        return maps;
+    }
+}
@@ -0,0 +1,106 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index-addressed view of one CSV record. All rows of a file share one
+ * {@link Schema}, so looking a column up by name is a single map lookup and no
+ * per-row header map is built.
+ *
+ * <p>Rows handed out by {@link CsvRowReader} are reused: the same instance is
+ * re-pointed at the next record, so call {@link #toMap()} or {@link #values()}
+ * to keep a row beyond the current iteration step.</p>
+ */
+public class CsvRow {
+
+    /* ================= SHARED HEADER SCHEMA ================= */
+
+    public static class Schema {
+
+        private final String[] headers;
+        private final Map<String, Integer> index = new HashMap<>();
+
+        public Schema(List<String> headers) {
+            this.headers = headers.toArray(new String[0]);
+            for (int i = 0; i < this.headers.length; i++) {
+                index.putIfAbsent(this.headers[i], i);
+            }
+        }
+
+        public int size() {
+            return headers.length;
+        }
+
+        public String header(int column) {
+            return headers[column];
+        }
+
+        public List<String> headers() {
+            return Collections.unmodifiableList(Arrays.asList(headers));
+        }
+
+        /** Column index for the header, or -1 if the file has no such column. */
+        public int indexOf(String header) {
+            Integer i = index.get(header);
+            return i == null ? -1 : i;
+        }
+    }
+
+    private final Schema schema;
+    private String[] values;
+    private long number;
+
+    CsvRow(Schema schema) {
+        this.schema = schema;
+    }
+
+    void reset(String[] values, long number) {
+        this.values = values;
+        this.number = number;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /** 1-based record number within the file (header excluded). */
+    public long getNumber() {
+        return number;
+    }
+
+    public int size() {
+        return schema.size();
+    }
+
+    /** Value of the column, or "" for a short record. */
+    public String get(int column) {
+        return column < values.length && values[column] != null ? values[column] : "";
+    }
+
+    /** Value of the named column, or null if the file has no such column. */
+    public String get(String header) {
+        int column = schema.indexOf(header);
+        return column < 0 ? null : get(column);
+    }
+
+    /** A copy of the values that stays valid after the reader moves on. */
+    public String[] values() {
+        String[] copy = new String[schema.size()];
+        for (int i = 0; i < copy.length; i++) copy[i] = get(i);
+        return copy;
+    }
+
+    /** A mutable, header-ordered copy of this row. */
+    public Map<String, String> toMap() {
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < schema.size(); i++) {
+            row.put(schema.header(i), get(i));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,102 @@
+package utils;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams a CSV file with a header row one record at a time. Only the current
+ * record is held in memory and every step hands out the same reusable
+ * {@link CsvRow} view, re-pointed at the next record.
+ *
+ * <pre>
+ * try (CsvRowReader reader = CsvUtils.streamCsv(path)) {
+ *     for (CsvRow row : reader) {
+ *         String url = row.get("PostUrl");
+ *     }
+ * }
+ * </pre>
+ */
+public class CsvRowReader implements Iterable<CsvRow>, AutoCloseable {
+
+    private final CSVParser parser;
+    private final CsvRow.Schema schema;
+    private boolean iterated;
+
+    CsvRowReader(String filePath) {
+        try {
+            Reader reader = Files.newBufferedReader(Paths.get(filePath));
+            this.parser = new CSVParser(
+                    reader,
+                    CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setTrim(true).build()
+            );
+        } catch (IOException e) {
+            throw new RuntimeException("CSV read failed", e);
+        }
+        this.schema = new CsvRow.Schema(parser.getHeaderNames());
+    }
+
+    public CsvRow.Schema getSchema() {
+        return schema;
+    }
+
+    /** Single-pass iterator; the returned row instance is reused on every next(). */
+    @Override
+    public Iterator<CsvRow> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("CsvRowReader can only be iterated once");
+        }
+        iterated = true;
+
+        Iterator<CSVRecord> records = parser.iterator();
+        CsvRow row = new CsvRow(schema);
+
+        return new Iterator<CsvRow>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return records.hasNext();
+                } catch (UncheckedIOException e) {
+                    throw new RuntimeException("CSV read failed", e);
+                }
+            }
+
+            @Override
+            public CsvRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                CSVRecord record = records.next();
+                row.reset(record.values(), record.getRecordNumber());
+                return row;
+            }
+        };
+    }
+
+    /** Sequential stream over the reusable row view; closing the stream closes the file. */
+    public Stream<CsvRow> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new RuntimeException("CSV close failed", e);
+        }
+    }
+}
@@ -26,10 +26,15 @@ public class CsvToHtmlConverter {
         String[] originalHeaders = headerSet.toArray(new String[0]);
         // Compute total records
         int totalRecords = rows.size();
-        // Compute negativeCount based on "Yes %" < 50% if that column exists (per-post)
+        // Compute negativeCount based on "Yes %" < 50% if that column exists (per-post);
+        // posts that failed to collect count as negative too
         int negativeCount = 0;
         String formulaText = "Likes with 'Yes %'";
         for (Map<String, String> rowMap : rows) {
+            if (PostFailure.isFailed(rowMap)) {
+                negativeCount++;
+                continue;
+            }
             String pct = null;
             // try case-insensitive lookup for "Yes %"
             for (String h : originalHeaders) {
@@ -3,6 +3,7 @@ package utils;
 import org.apache.commons.csv.*;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.*;
 
@@ -12,28 +13,46 @@ public class CsvUtils {
 
     public static List<Map<String, String>> readCsv(String filePath) {
 
+        // big exports: parse in parallel from a mapped file
+        File file = new File(filePath);
+        if (file.length() >= ConfigReader.getInt("csv.parallel.minMb", 16) * 1024L * 1024L) {
+            return readColumns(filePath).toMaps();
+        }
+
         List<Map<String, String>> data = new ArrayList<>();
 
-        try (
-                Reader reader = Files.newBufferedReader(Paths.get(filePath));
-                CSVParser parser = new CSVParser(
-                        reader,
-                        CSVFormat.DEFAULT.withFirstRecordAsHeader().withTrim()
-                )
-        ) {
-            for (CSVRecord record : parser) {
-                Map<String, String> row = new LinkedHashMap<>();
-                for (String header : parser.getHeaderMap().keySet()) {
-                    row.put(header, record.get(header));
-                }
-                data.add(row);
+        try (CsvRowReader reader = streamCsv(filePath)) {
+            for (CsvRow row : reader) {
+                data.add(row.toMap());
             }
-        } catch (IOException e) {
-            throw new RuntimeException("CSV read failed", e);
         }
         return data;
     }
 
+    /* ========= READ WHOLE FILE INTO COLUMNS ========= */
+
+    /**
+     * Reads the file into columns, memory-mapped and split at record
+     * boundaries into csv.chunk.mb chunks that are parsed in parallel.
+     */
+    public static CsvColumns readColumns(String filePath) {
+        return readColumns(filePath, ConfigReader.getInt("csv.chunk.mb", 8) * 1024L * 1024L);
+    }
+
+    public static CsvColumns readColumns(String filePath, long chunkBytes) {
+        return new MappedCsvReader(filePath, chunkBytes).read();
+    }
+
+    /* ========= STREAM CSV ROW BY ROW ========= */
+
+    /**
+     * Opens the file for row-by-row reading. Rows are reusable views over a
+     * shared header schema; close the reader (or the stream) when done.
+     */
+    public static CsvRowReader streamCsv(String filePath) {
+        return new CsvRowReader(filePath);
+    }
+
     /* ========= WRITE CSV GENERIC ========= */
 
     public static void writeCsv(String filePath, List<Map<String, String>> data) {
@@ -57,6 +76,16 @@ public class CsvUtils {
             throw new RuntimeException("CSV write failed", e);
         }
     }
+    /* ========= APPEND ROWS AS THEY FINISH ========= */
+
+    /**
+     * Opens a writer that flushes every row as soon as it is appended.
+     * With append=false the file is started afresh on the first row.
+     */
+    public static CsvAppender openAppender(String filePath, boolean append) {
+        return new CsvAppender(filePath, append);
+    }
+
     public static boolean copyCsvFile(String inputPath, String outputPath) {
 
         File inputFile = new File(inputPath);
@@ -74,18 +103,17 @@ public class CsvUtils {
             parentDir.mkdirs();
         }
 
+        // zero-copy: the kernel moves the bytes file to file
         try (
-                BufferedInputStream bis = new BufferedInputStream(new FileInputStream(inputFile));
-                BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(outputFile))
+                FileChannel in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
         ) {
-            byte[] buffer = new byte[1024];
-            int length;
-
-            while ((length = bis.read(buffer)) != -1) {
-                bos.write(buffer, 0, length);
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
             }
-
-            bos.flush(); // ensure data is written
             return true;
 
         } catch (IOException e) {
@@ -4,32 +4,45 @@ import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.*;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ElementActions {
 
+    /* upper bound for element waits; WaitEngine narrows it per wait name */
+    private static final Duration ELEMENT_CEILING = Duration.ofSeconds(25);
+
     private WebDriver driver;
-    private WebDriverWait wait;
+    private WaitEngine waits;
 
     public ElementActions(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(25));
+        this.waits = new WaitEngine(driver);
+    }
+
+    public WaitEngine getWaits() {
+        return waits;
+    }
+
+    /* One wait name per locator, so each element's ceiling is tuned from its own timings. */
+    private static String waitName(String kind, By locator) {
+        return "actions." + kind + " " + locator;
     }
 
     /* ================= SCROLL INTO VIEW AND CLICK ================= */
 
     public void scrollAndClick(By locator) {
         try {
-            WebElement element = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(locator)
-            );
-
-            ((JavascriptExecutor) driver)
-                    .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
-            Thread.sleep(1000);
+            StepTimings.time("actions.scrollAndClick", () -> {
+                WebElement element = waits.require(waitName("present", locator), locator, ELEMENT_CEILING);
 
-            wait.until(ExpectedConditions.elementToBeClickable(locator)).click();
+                ((JavascriptExecutor) driver)
+                        .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
+                waits.untilDomQuiet("scrollAndClick.settle", Duration.ofMillis(200), Duration.ofSeconds(1));
 
+                waits.require(waitName("clickable", locator), ELEMENT_CEILING,
+                        ExpectedConditions.elementToBeClickable(locator)).click();
+            });
         } catch (Exception e) {
             throw new RuntimeException("Failed to scroll and click: " + locator, e);
         }
@@ -38,21 +51,26 @@ public class ElementActions {
     /* ================= SCROLL AND CLICK (WEBELEMENT) ================= */
 
     public void scrollAndClick(WebElement element) {
-        try {
-            ((JavascriptExecutor) driver)
-                    .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
+        scrollAndClick("element", element);
+    }
 
-            wait.until(ExpectedConditions.elementToBeClickable(element)).click();
+    /** {@code name} labels the clickable wait, so its ceiling is tuned separately. */
+    public void scrollAndClick(String name, WebElement element) {
+        try {
+            StepTimings.time("actions.scrollAndClick", () -> {
+                ((JavascriptExecutor) driver)
+                        .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
 
+                waits.require("actions.clickable " + name, ELEMENT_CEILING,
+                        ExpectedConditions.elementToBeClickable(element)).click();
+            });
         } catch (Exception e) {
             System.out.println("Failed to scroll and click element"+e);
         }
     }
     public boolean isElementDisplayed(By locator) {
         try {
-            WebElement element = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(locator)
-            );
+            WebElement element = waits.require(waitName("present", locator), locator, ELEMENT_CEILING);
             return element.isDisplayed();
         } catch (TimeoutException | NoSuchElementException e) {
             return false;
@@ -77,28 +95,30 @@ public class ElementActions {
         }
     }
     public void clickUntilNotDisplayed(By locator, int maxAttempts) {
+        StepTimings.time("actions.clickUntilNotDisplayed", () -> {
 
-        int attempt = 0;
+            int attempt = 0;
 
-        while (attempt < maxAttempts && isElementDisplayed(locator)) {
-            try {
-                WebElement element = wait.until(
-                        ExpectedConditions.elementToBeClickable(locator)
-                );
+            while (attempt < maxAttempts && isElementDisplayed(locator)) {
+                try {
+                    WebElement element = waits.require(waitName("clickable", locator), ELEMENT_CEILING,
+                            ExpectedConditions.elementToBeClickable(locator));
 
-                ((JavascriptExecutor) driver)
-                        .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
+                    ((JavascriptExecutor) driver)
+                            .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
 
-                element.click();
+                    RateGovernor.shared().acquire(driver);
+                    element.click();
 
-                // wait for DOM update
-                wait.until(ExpectedConditions.stalenessOf(element));
+                    // wait for DOM update
+                    waits.require(waitName("stale", locator), ELEMENT_CEILING, ExpectedConditions.stalenessOf(element));
 
-            } catch (TimeoutException | StaleElementReferenceException ignored) {
-            }
+                } catch (TimeoutException | StaleElementReferenceException ignored) {
+                }
 
-            attempt++;
-        }
+                attempt++;
+            }
+        });
     }
     public void clickAndWaitForMore(By buttonBy, int maxAttempts) {
 
@@ -114,97 +134,148 @@ public class ElementActions {
 
     }
     public void scrollUntilItDisappears(By locator, int maxScrolls) {
+        StepTimings.time("actions.scrollUntilItDisappears", () -> {
 
-        JavascriptExecutor js = (JavascriptExecutor) driver;
+            JavascriptExecutor js = (JavascriptExecutor) driver;
 
-        for (int i = 0; i < maxScrolls; i++) {
+            for (int i = 0; i < maxScrolls; i++) {
 
-            // If element is gone → stop
-            if (driver.findElements(locator).isEmpty()) {
-                System.out.println("Element disappeared after " + i + " scrolls");
-                break;
-            }
+                // If element is gone → stop
+                if (driver.findElements(locator).isEmpty()) {
+                    System.out.println("Element disappeared after " + i + " scrolls");
+                    break;
+                }
 
-            try {
-                WebElement element = driver.findElement(locator);
+                try {
+                    WebElement element = driver.findElement(locator);
 
-                js.executeScript(
-                        "arguments[0].scrollIntoView({block:'end'});", element);
+                    RateGovernor.shared().acquire(driver);
+                    js.executeScript(
+                            "arguments[0].scrollIntoView({block:'end'});", element);
 
-                // Small wait for DOM update
-                Thread.sleep(800);
+                    // Wait for the next batch to render
+                    waits.untilDomSettled("scrollUntilItDisappears.batch",
+                            Duration.ofMillis(300), Duration.ofMillis(800));
 
-            } catch (StaleElementReferenceException e) {
-                // DOM refreshed → re-check in next iteration
-            } catch (Exception e) {
-                break;
+                } catch (StaleElementReferenceException e) {
+                    // DOM refreshed → re-check in next iteration
+                } catch (Exception e) {
+                    break;
+                }
             }
-        }
-
-
+        });
     }
     public void scrollUntilItDisappears1(By locator, int maxScrolls) {
+        StepTimings.time("actions.scrollUntilItDisappears1", () -> {
 
-        JavascriptExecutor js = (JavascriptExecutor) driver;
+            JavascriptExecutor js = (JavascriptExecutor) driver;
 
-        for (int i = 0; i < maxScrolls; i++) {
+            for (int i = 0; i < maxScrolls; i++) {
 
-            List<WebElement> elements = driver.findElements(locator);
+                List<WebElement> elements = driver.findElements(locator);
 
-            // Element gone OR not visible → STOP
-            if (elements.isEmpty() || !elements.get(0).isDisplayed()) {
-                System.out.println("Element disappeared at scroll: " + i);
-                break;
-            }
+                // Element gone OR not visible → STOP
+                if (elements.isEmpty() || !elements.get(0).isDisplayed()) {
+                    System.out.println("Element disappeared at scroll: " + i);
+                    break;
+                }
 
-            js.executeScript(
-                    "arguments[0].scrollIntoView({block:'end'});", elements);
-            try {
-                Thread.sleep(800);
-            } catch (InterruptedException ignored) {}
-        }
+                RateGovernor.shared().acquire(driver);
+                js.executeScript(
+                        "arguments[0].scrollIntoView({block:'end'});", elements.get(0));
+                waits.untilDomSettled("scrollUntilItDisappears1.batch",
+                        Duration.ofMillis(300), Duration.ofMillis(800));
+            }
+        });
     }
 
     public void clickUntilGone(By locator, int maxClicks) {
+        StepTimings.time("actions.clickUntilGone", () -> {
 
-        JavascriptExecutor js = (JavascriptExecutor) driver;
+            JavascriptExecutor js = (JavascriptExecutor) driver;
 
-        for (int i = 0; i < maxClicks; i++) {
+            for (int i = 0; i < maxClicks; i++) {
 
-            List<WebElement> elements = driver.findElements(locator);
+                List<WebElement> elements = driver.findElements(locator);
 
-            if (elements.isEmpty() || !elements.get(0).isDisplayed()) {
-                break;
-            }
+                if (elements.isEmpty() || !elements.get(0).isDisplayed()) {
+                    break;
+                }
 
-            js.executeScript("arguments[0].click();", elements.get(0));
+                RateGovernor.shared().acquire(driver);
+                js.executeScript("arguments[0].click();", elements.get(0));
 
-            try {
-                Thread.sleep(1500);
-            } catch (InterruptedException ignored) {}
-        }
+                waits.untilDomSettled("clickUntilGone.batch",
+                        Duration.ofMillis(300), Duration.ofMillis(1500));
+            }
+        });
     }
 
-    public void customSleep(int sec)  {
-        try {
-            long wait=sec*1000;
-            Thread.sleep(wait);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-    }
     public void scrollNTimes(int number){
-        JavascriptExecutor js = (JavascriptExecutor) driver;
+        StepTimings.time("actions.scrollNTimes", () -> {
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+
+            for (int i = 0; i < number; i++) {
+                RateGovernor.shared().acquire(driver);
+                js.executeScript("window.scrollBy(0,1000);");
+                waits.untilDomSettled("scrollNTimes.batch",
+                        Duration.ofMillis(300), Duration.ofSeconds(1));
+            }
+        });
+    }
+    /* ================= LOAD A WHOLE LIST ================= */
+
+    /**
+     * Clicks "load more" / scrolls until the list of {@code items} stops
+     * growing, waiting for each batch to arrive instead of a fixed number of
+     * scrolls. See {@link ScrollLoader}.
+     */
+    public ScrollLoader.Result loadAll(String name, By items, By loadMore) {
+        return StepTimings.time("actions.loadAll", () -> new ScrollLoader(driver, items).loadMore(loadMore).load(name));
+    }
 
-        for (int i = 0; i < number; i++) {
-            js.executeScript("window.scrollBy(0,1000);");
-            customSleep(1);
-        }
+    /**
+     * Like {@link #loadAll}, but collects the items while scrolling, deduplicated
+     * by {@code keyAttribute} (e.g. "href" for the profile link), so nothing is
+     * lost when the list drops nodes that scrolled away. The names are
+     * {@link ScrollLoader.Result#getNames()}.
+     */
+    public ScrollLoader.Result harvestAll(String name, By items, By loadMore, String keyAttribute) {
+        return StepTimings.time("actions.harvestAll", () -> new ScrollLoader(driver, items).loadMore(loadMore).harvest(keyAttribute).load(name));
     }
+
     public void scrollToElement(By locator) {
-        WebElement element = driver.findElement(locator);
+        WebElement element = waits.require(waitName("present", locator), locator, ELEMENT_CEILING);
         ((JavascriptExecutor) driver)
                 .executeScript("arguments[0].scrollIntoView({block:'center'});", element);
     }
 
+    /* ================= BULK TEXT EXTRACTION ================= */
+
+    /**
+     * Returns the trimmed, non-empty text of every element matching the locator
+     * using a single executeScript call instead of one getText() per element.
+     */
+    public List<String> getTexts(By locator) {
+        return getTexts(null, locator);
+    }
+
+    /** Same as {@link #getTexts(By)}, searching only inside root. */
+    public List<String> getTexts(WebElement root, By locator) {
+        List<String> texts = new ArrayList<>();
+        for (String[] item : StepTimings.time("actions.getTexts", () -> Locators.extract(driver, root, locator))) {
+            texts.add(item[0]);
+        }
+        return texts;
+    }
+
+    /**
+     * Returns {text, attribute values...} for every element matching the locator
+     * in one round-trip. Attributes missing on the element are taken from its
+     * closest ancestor that has them (e.g. "href" of the enclosing profile link).
+     */
+    public List<String[]> getTextsWithAttributes(By locator, String... attributes) {
+        return StepTimings.time("actions.getTexts", () -> Locators.extract(driver, null, locator, attributes));
+    }
+
 }
@@ -0,0 +1,221 @@
+package utils;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent cache of the engager names extracted for a post, keyed by PostUrl
+ * and engagement type and stamped with the headline total shown when they were
+ * collected. If the post still shows the same total (or one within the
+ * tolerance), the cached names are reused and the dialog is not scrolled.
+ * Only exact totals count: an abbreviated one such as "1.2K" covers a
+ * hundred real counts, so such posts are neither cached nor served from the
+ * cache.
+ *
+ * <p>The cache holds at most {@code maxEntries} posts and evicts the least
+ * recently used. Hit/miss counts per type are shown in the HTML report.</p>
+ */
+public class EngagementCache {
+
+    private static final Pattern COUNT = Pattern.compile("(\\d[\\d,.]*)\\s*([KkMm])?");
+
+    private static EngagementCache shared;
+
+    /* ================= ONE CACHED POST ================= */
+
+    private static class Entry {
+
+        final long total;
+        final List<String> names;
+
+        Entry(long total, List<String> names) {
+            this.total = total;
+            this.names = names;
+        }
+    }
+
+    private static class Stats {
+        int hits;
+        int misses;
+    }
+
+    private final Path path;
+    private final int maxEntries;
+    private final double tolerancePercent;
+    private final Map<String, Entry> entries;
+    private final Map<String, Stats> stats = new TreeMap<>();
+    private int evictions;
+
+    /**
+     * @param tolerancePercent how far (in percent of the cached total) the live
+     *                         total may drift and still count as a hit; 0 means
+     *                         the totals must match exactly
+     */
+    public EngagementCache(String filePath, int maxEntries, double tolerancePercent) {
+        this.path = Paths.get(filePath);
+        this.maxEntries = maxEntries;
+        this.tolerancePercent = tolerancePercent;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > EngagementCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        load();
+        ReportSections.register("Engagement cache", this::reportRows);
+    }
+
+    /** The cache configured by cache.file / cache.maxEntries / cache.tolerance.percent, shared by all tests. */
+    public static synchronized EngagementCache shared() {
+        if (shared == null) {
+            shared = new EngagementCache(
+                    ConfigReader.get("cache.file", "src/test/resources/testOutput/cache/engagements.csv"),
+                    ConfigReader.getInt("cache.maxEntries", 5000),
+                    Double.parseDouble(ConfigReader.get("cache.tolerance.percent", "0"))
+            );
+        }
+        return shared;
+    }
+
+    /* ================= LOOKUP / STORE ================= */
+
+    /**
+     * Returns the cached names if the post was cached with a total that matches
+     * the live one, otherwise null. Counts a hit or a miss for the type.
+     */
+    public synchronized List<String> lookup(String postUrl, String type, String liveTotal) {
+        Entry entry = entries.get(key(postUrl, type));
+        long live = parseCount(liveTotal);
+        boolean hit = entry != null && live >= 0 && withinTolerance(entry.total, live);
+
+        Stats s = stats.computeIfAbsent(type, k -> new Stats());
+        if (hit) s.hits++;
+        else s.misses++;
+        return hit ? entry.names : null;
+    }
+
+    public synchronized void put(String postUrl, String type, String liveTotal, List<String> names) {
+        long live = parseCount(liveTotal);
+        if (live < 0) return;   // nothing to validate a later lookup against
+        entries.put(key(postUrl, type), new Entry(live, Collections.unmodifiableList(new ArrayList<>(names))));
+    }
+
+    private boolean withinTolerance(long cached, long live) {
+        if (cached == live) return true;
+        return Math.abs(live - cached) * 100.0 <= tolerancePercent * cached;
+    }
+
+    private static String key(String postUrl, String type) {
+        return type + "|" + postUrl;
+    }
+
+    /**
+     * Reads the leading count of a headline such as "81" or "1,234 comments".
+     * Returns -1 if there is no number or it is abbreviated ("1.2K reactions"),
+     * since an abbreviated total does not change with every new engager.
+     */
+    static long parseCount(String text) {
+        if (text == null) return -1;
+        Matcher m = COUNT.matcher(text);
+        if (!m.find() || m.group(2) != null) return -1;
+        try {
+            return Long.parseLong(m.group(1).replace(",", "").replace(".", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /* ================= PERSISTENCE ================= */
+
+    private void load() {
+        if (!Files.exists(path)) return;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT)) {
+            // type, postUrl, total, names...
+            for (CSVRecord record : parser) {
+                if (record.size() < 3) continue;
+                String[] values = record.values();
+                List<String> names = Arrays.asList(values).subList(3, values.length);
+                entries.put(key(values[1], values[0]),
+                        new Entry(Long.parseLong(values[2]), Collections.unmodifiableList(new ArrayList<>(names))));
+            }
+            System.out.println("Loaded " + entries.size() + " cached engagement list(s) from " + path);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable engagement cache " + path + ": " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /** Writes the cache (least recently used first) to a temp file and swaps it in. */
+    public synchronized void save() {
+        File parent = path.toFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+
+        Path tmp = Paths.get(path + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+             CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                int split = e.getKey().indexOf('|');
+                List<String> record = new ArrayList<>();
+                record.add(e.getKey().substring(0, split));
+                record.add(e.getKey().substring(split + 1));
+                record.add(Long.toString(e.getValue().total));
+                record.addAll(e.getValue().names);
+                printer.printRecord(record);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Engagement cache write failed", e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Engagement cache write failed", e);
+        }
+    }
+
+    /* ================= STATISTICS ================= */
+
+    private synchronized List<String[]> reportRows() {
+        if (stats.isEmpty()) return Collections.emptyList();
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Type", "Hits", "Misses", "Hit rate", "Cached posts", "Evictions"});
+        for (Map.Entry<String, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            int lookups = s.hits + s.misses;
+            rows.add(new String[]{
+                    e.getKey(),
+                    Integer.toString(s.hits),
+                    Integer.toString(s.misses),
+                    String.format("%.1f%%", lookups == 0 ? 0 : s.hits * 100.0 / lookups),
+                    Integer.toString(entries.size()),
+                    Integer.toString(evictions)
+            });
+        }
+        return rows;
+    }
+}
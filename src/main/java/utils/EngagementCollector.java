@@ -0,0 +1,21 @@
+package utils;
+
+import java.util.Map;
+
+/**
+ * Collects one kind of engagement (likes, comments, reposts, ...) for the post
+ * a session is currently showing. {@link EngagementPipeline} opens each post
+ * once and runs every enabled collector on it in turn.
+ */
+public interface EngagementCollector {
+
+    /** Short name of the engagement type, e.g. "likes"; used in engagement.types and as the journal name. */
+    String getType();
+
+    /**
+     * Fills the row (Total, roster columns, Yes % ...) from the post the session
+     * is on. It must not navigate away, and must close any dialog it opened so
+     * the next collector starts from the post page.
+     */
+    Map<String, String> collect(WebDriverPool.Session session, Map<String, String> row);
+}
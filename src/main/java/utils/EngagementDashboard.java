@@ -0,0 +1,187 @@
+package utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * One page across all engagement types: the per-type result CSVs are joined
+ * per roster user (share of posts engaged with, per type and combined) and
+ * per post (engaged users per type). A user's combined score is the mean of
+ * their per-type rates over the types they appear in. Posts that failed to
+ * collect (Status "FAILED ...") are left out.
+ */
+public class EngagementDashboard {
+
+    private final Map<String, CsvColumns> byType;
+
+    /** @param byType result columns per engagement type, in display order */
+    public EngagementDashboard(Map<String, CsvColumns> byType) {
+        this.byType = byType;
+    }
+
+    /**
+     * Reads the CSVs in parallel on the executor, then renders the dashboard
+     * on it. The reads are queued before the render, so a single-thread
+     * executor cannot deadlock.
+     */
+    public static Future<?> generate(Map<String, String> csvByType, String outputHtml, ExecutorService executor) {
+        Map<String, Future<CsvColumns>> reads = new LinkedHashMap<>();
+        for (Map.Entry<String, String> csv : csvByType.entrySet()) {
+            if (new File(csv.getValue()).exists()) {
+                reads.put(csv.getKey(), executor.submit(() -> CsvUtils.readColumns(csv.getValue())));
+            }
+        }
+        return executor.submit(() -> {
+            Map<String, CsvColumns> loaded = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<CsvColumns>> read : reads.entrySet()) {
+                loaded.put(read.getKey(), await(read.getValue()));
+            }
+            new EngagementDashboard(loaded).write(outputHtml);
+        });
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Dashboard interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Dashboard input failed", e.getCause());
+        }
+    }
+
+    /* ================= JOIN ================= */
+
+    /* Per-type counts for one user: posts engaged with, posts seen. */
+    private static class UserStats {
+        final Map<String, int[]> perType = new LinkedHashMap<>();
+    }
+
+    /** Writes the dashboard: one row per roster user, plus a per-post section. */
+    public void write(String outputHtml) {
+        List<String> types = new ArrayList<>(byType.keySet());
+        Map<String, UserStats> users = new LinkedHashMap<>();
+        Map<String, int[]> posts = new LinkedHashMap<>();       // post -> engaged per type
+        Map<String, int[]> postRoster = new LinkedHashMap<>();  // post -> roster size per type
+
+        for (int t = 0; t < types.size(); t++) {
+            CsvColumns result = byType.get(types.get(t));
+            String[] postUrls = result.column("PostUrl");
+            String[] statuses = result.column(PostFailure.STATUS);
+            int rows = result.getRowCount();
+            boolean[] failed = new boolean[rows];
+            int collected = 0;
+            for (int r = 0; r < rows; r++) {
+                failed[r] = statuses != null && statuses[r].startsWith("FAILED");
+                if (!failed[r]) collected++;
+            }
+            int rosterSize = 0;
+
+            for (int c = 0; c < result.getSchema().size(); c++) {
+                String user = result.getSchema().header(c);
+                if (EngagementMatrix.isMetaColumn(user)) continue;
+
+                int engaged = 0;
+                for (int r = 0; r < rows; r++) {
+                    if (failed[r] || !"YES".equalsIgnoreCase(result.get(r, c))) continue;
+                    engaged++;
+                    if (postUrls != null) posts.computeIfAbsent(postUrls[r], k -> new int[types.size()])[t]++;
+                }
+                users.computeIfAbsent(user, k -> new UserStats()).perType.put(types.get(t), new int[]{engaged, collected});
+                rosterSize++;
+            }
+            for (int r = 0; postUrls != null && r < rows; r++) {
+                if (failed[r]) continue;
+                posts.computeIfAbsent(postUrls[r], k -> new int[types.size()]);
+                postRoster.computeIfAbsent(postUrls[r], k -> new int[types.size()])[t] = rosterSize;
+            }
+        }
+
+        String[] headers = new String[types.size() + 3];
+        headers[0] = "User";
+        for (int t = 0; t < types.size(); t++) headers[t + 1] = capitalize(types.get(t)) + " %";
+        headers[types.size() + 1] = "Combined %";
+        headers[types.size() + 2] = "Engagements";
+
+        List<String[]> table = new ArrayList<>();
+        int under50 = 0;
+        for (Map.Entry<String, UserStats> user : users.entrySet()) {
+            String[] line = new String[headers.length];
+            line[0] = user.getKey();
+            double rateSum = 0;
+            int typesSeen = 0;
+            int engagements = 0;
+            for (int t = 0; t < types.size(); t++) {
+                int[] stats = user.getValue().perType.get(types.get(t));
+                if (stats == null || stats[1] == 0) {
+                    line[t + 1] = "";
+                    continue;
+                }
+                double rate = stats[0] * 100.0 / stats[1];
+                line[t + 1] = percent(rate);
+                rateSum += rate;
+                typesSeen++;
+                engagements += stats[0];
+            }
+            double combined = typesSeen == 0 ? 0 : rateSum / typesSeen;
+            if (combined < 50.0) under50++;
+            line[types.size() + 1] = percent(combined);
+            line[types.size() + 2] = String.valueOf(engagements);
+            table.add(line);
+        }
+
+        Map<String, List<String[]>> sections = new LinkedHashMap<>();
+        sections.put("Engagement per post", postRows(types, posts, postRoster));
+
+        File parent = new File(outputHtml).getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        System.out.println("Generating dashboard: " + outputHtml);
+        HtmlReportGenerator.generateHtmlReport(outputHtml, table, headers, users.size(), under50,
+                "Roster users across " + String.join(", ", types) + " (combined under 50% counted as failed)",
+                sections);
+    }
+
+    private static List<String[]> postRows(List<String> types, Map<String, int[]> posts, Map<String, int[]> roster) {
+        List<String[]> rows = new ArrayList<>();
+        String[] header = new String[types.size() + 2];
+        header[0] = "Post";
+        for (int t = 0; t < types.size(); t++) header[t + 1] = capitalize(types.get(t));
+        header[types.size() + 1] = "Combined %";
+        rows.add(header);
+
+        for (Map.Entry<String, int[]> post : posts.entrySet()) {
+            String[] line = new String[header.length];
+            line[0] = post.getKey();
+            int engaged = 0;
+            int slots = 0;
+            int[] sizes = roster.get(post.getKey());
+            for (int t = 0; t < types.size(); t++) {
+                boolean seen = sizes != null && sizes[t] > 0;
+                line[t + 1] = seen ? post.getValue()[t] + " / " + sizes[t] : "";
+                if (seen) {
+                    engaged += post.getValue()[t];
+                    slots += sizes[t];
+                }
+            }
+            line[types.size() + 1] = percent(slots == 0 ? 0 : engaged * 100.0 / slots);
+            rows.add(line);
+        }
+        return rows.size() == 1 ? new ArrayList<>() : rows;
+    }
+
+    private static String percent(double value) {
+        return String.format(Locale.ROOT, "%.2f%%", value);
+    }
+
+    private static String capitalize(String type) {
+        return type.isEmpty() ? type : Character.toUpperCase(type.charAt(0)) + type.substring(1);
+    }
+}
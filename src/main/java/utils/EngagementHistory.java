@@ -0,0 +1,474 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps every run's results, so trends survive the output CSVs being
+ * rewritten. One record per run, type and post holds two bitsets over
+ * stable user ids: who was on the roster and who engaged.
+ *
+ * <p>On disk (history.dir):</p>
+ * <ul>
+ *   <li>{@code seg-NNNNN.log}: append-only segments of records, rolled at
+ *       history.segment.mb;</li>
+ *   <li>{@code records.idx}: fixed-width entries (run, type, post, segment,
+ *       offset) in write order, memory-mapped for queries. Runs are
+ *       contiguous, so the last N runs are a binary search plus a scan of the
+ *       tail. On open the entries are also grouped per type and per post in
+ *       memory, so a query only visits its own type's entries and a post's
+ *       previous run is one lookup;</li>
+ *   <li>{@code users.dict}, {@code posts.dict}, {@code types.dict}: one name
+ *       per line, the line number is the id;</li>
+ *   <li>{@code runs.log}: run number and start time per line.</li>
+ * </ul>
+ *
+ * <p>A run counts once its line is in runs.log, which is written after its
+ * records and index entries are forced. The dictionaries and runs.log are
+ * forced too, so a record never refers to an id that did not survive. Open drops the index entries of a
+ * run that never got there and the segment bytes after the last kept record,
+ * so a crash mid-write loses only that run.</p>
+ */
+public class EngagementHistory implements AutoCloseable {
+
+    private static final int INDEX_ENTRY = 24;   // run, type, post, segment (ints) + offset (long)
+    private static final int RECORD_MAGIC = 0x454E4731;  // "ENG1"
+
+    /* ================= RESULTS ================= */
+
+    /** A post whose engaged count differs from its previous run. */
+    public static class Change {
+
+        private final String postUrl;
+        private final int before;
+        private final int after;
+
+        Change(String postUrl, int before, int after) {
+            this.postUrl = postUrl;
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getPostUrl() {
+            return postUrl;
+        }
+
+        public int getBefore() {
+            return before;
+        }
+
+        public int getAfter() {
+            return after;
+        }
+    }
+
+    private final Path dir;
+    private final long segmentBytes;
+
+    private final Dictionary users;
+    private final Dictionary posts;
+    private final Dictionary types;
+    private final List<Long> runStarts = new ArrayList<>();
+
+    private FileChannel index;
+    private long indexSize;
+    private MappedByteBuffer indexMap;
+    private FileChannel segment;
+    private int segmentNumber;
+    private final Map<Integer, MappedByteBuffer> segmentMaps = new HashMap<>();
+    private final Map<Integer, List<Integer>> entriesByType = new HashMap<>();
+    private final Map<Long, List<Integer>> entriesByPost = new HashMap<>();   // key: type << 32 | post
+
+    public EngagementHistory(String directory, long segmentBytes) {
+        this.dir = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        dir.toFile().mkdirs();
+        try {
+            users = new Dictionary(dir.resolve("users.dict"));
+            posts = new Dictionary(dir.resolve("posts.dict"));
+            types = new Dictionary(dir.resolve("types.dict"));
+            for (String line : readLines(dir.resolve("runs.log"))) {
+                String[] parts = line.split(",");
+                if (parts.length == 2) runStarts.add(Long.parseLong(parts[1]));
+            }
+            openIndex();
+        } catch (IOException e) {
+            throw new RuntimeException("History open failed: " + directory, e);
+        }
+    }
+
+    /** The store in history.dir, or null if history.enabled is false. */
+    public static EngagementHistory fromConfig() {
+        if (!ConfigReader.getBoolean("history.enabled", true)) return null;
+        return new EngagementHistory(
+                ConfigReader.get("history.dir", "src/test/resources/testOutput/history"),
+                ConfigReader.getInt("history.segment.mb", 8) * 1024L * 1024L);
+    }
+
+    /* ================= OPEN ================= */
+
+    private void openIndex() throws IOException {
+        index = FileChannel.open(dir.resolve("records.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // a torn last entry, and the entries of a run that never reached runs.log, are dropped
+        indexSize = index.size() / INDEX_ENTRY * INDEX_ENTRY;
+        ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY);
+        while (indexSize > 0) {
+            last.clear();
+            index.read(last, indexSize - INDEX_ENTRY);
+            if (last.getInt(0) < runStarts.size()) break;
+            indexSize -= INDEX_ENTRY;
+        }
+        index.truncate(indexSize);
+
+        long end = 0;
+        segmentNumber = 0;
+        if (indexSize > 0) {
+            segmentNumber = last.getInt(12);
+            long offset = last.getLong(16);
+            end = offset + recordLength(segmentNumber, offset);
+        }
+        segment = FileChannel.open(segmentPath(segmentNumber),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // records written after the last index entry were never committed
+        segment.truncate(end);
+        segment.position(end);
+        remapIndex();
+        groupEntries(0);
+    }
+
+    /* Adds the entries from {@code from} on to the per-type and per-post lists, which stay ascending. */
+    private void groupEntries(int from) {
+        for (int e = from, n = entryCount(); e < n; e++) {
+            int type = entryInt(e, 4);
+            entriesByType.computeIfAbsent(type, k -> new ArrayList<>()).add(e);
+            entriesByPost.computeIfAbsent(postKey(type, entryInt(e, 8)), k -> new ArrayList<>()).add(e);
+        }
+    }
+
+    private static long postKey(int type, int post) {
+        return (long) type << 32 | (post & 0xFFFFFFFFL);
+    }
+
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format(Locale.ROOT, "seg-%05d.log", number));
+    }
+
+    private int recordLength(int segmentNo, long offset) throws IOException {
+        try (FileChannel ch = FileChannel.open(segmentPath(segmentNo), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            ch.read(header, offset);
+            return header.getInt(4);
+        }
+    }
+
+    /* ================= WRITE ================= */
+
+    /** Stores every type and post of the matrix as one new run; returns the run number. */
+    public synchronized int append(EngagementMatrix matrix) {
+        int run = runStarts.size();
+        long startedAt = System.currentTimeMillis();
+        int firstNew = entryCount();
+        try {
+            // ids first, and on disk before any record refers to them
+            for (String type : matrix.getTypes()) {
+                types.id(type);
+                for (String user : matrix.getRoster(type)) users.id(user);
+                for (String postUrl : matrix.getPosts(type)) posts.id(postUrl);
+            }
+            users.flush();
+            posts.flush();
+            types.flush();
+
+            int words = (users.size() + 63) >>> 6;
+            for (String type : matrix.getTypes()) {
+                List<String> roster = matrix.getRoster(type);
+                for (String postUrl : matrix.getPosts(type)) {
+                    // nothing is known about a failed post; its last good record stays the latest
+                    if (matrix.isFailed(type, postUrl)) continue;
+                    long[] onRoster = new long[words];
+                    long[] engaged = new long[words];
+                    for (String name : roster) {
+                        int user = users.find(name);
+                        onRoster[user >>> 6] |= 1L << user;
+                        if (matrix.engaged(type, postUrl, name)) engaged[user >>> 6] |= 1L << user;
+                    }
+                    writeRecord(run, types.find(type), posts.find(postUrl), onRoster, engaged);
+                }
+            }
+            segment.force(false);
+            index.force(false);
+            appendForced(dir.resolve("runs.log"), run + "," + startedAt + "\n");
+        } catch (IOException e) {
+            throw new RuntimeException("History write failed", e);
+        }
+        runStarts.add(startedAt);
+        remapIndex();
+        groupEntries(firstNew);
+        return run;
+    }
+
+    /* Record: magic, length, run, type, post, words, roster bits, engaged bits. */
+    private void writeRecord(int run, int type, int post, long[] onRoster, long[] engaged) throws IOException {
+        int length = 24 + onRoster.length * 16;
+        if (segment.position() > 0 && segment.position() + length > segmentBytes) rollSegment();
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(RECORD_MAGIC).putInt(length).putInt(run).putInt(type).putInt(post).putInt(onRoster.length);
+        for (long word : onRoster) record.putLong(word);
+        for (long word : engaged) record.putLong(word);
+        record.flip();
+
+        long offset = segment.position();
+        while (record.hasRemaining()) segment.write(record);
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+        entry.putInt(run).putInt(type).putInt(post).putInt(segmentNumber).putLong(offset).flip();
+        while (entry.hasRemaining()) indexSize += index.write(entry, indexSize);
+    }
+
+    private void rollSegment() throws IOException {
+        segment.force(false);
+        segment.close();
+        segmentMaps.remove(segmentNumber);
+        segmentNumber++;
+        segment = FileChannel.open(segmentPath(segmentNumber),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void remapIndex() {
+        try {
+            indexMap = index.map(FileChannel.MapMode.READ_ONLY, 0, indexSize);
+            segmentMaps.remove(segmentNumber);   // the open segment has grown
+        } catch (IOException e) {
+            throw new RuntimeException("History index map failed", e);
+        }
+    }
+
+    private MappedByteBuffer segmentMap(int number) {
+        return segmentMaps.computeIfAbsent(number, n -> {
+            try (FileChannel ch = FileChannel.open(segmentPath(n), StandardOpenOption.READ)) {
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            } catch (IOException e) {
+                throw new RuntimeException("History segment map failed: " + segmentPath(n), e);
+            }
+        });
+    }
+
+    /* ================= QUERY ================= */
+
+    public synchronized int getRunCount() {
+        return runStarts.size();
+    }
+
+    /**
+     * Share (0..100) of the posts the user engaged with, over the last
+     * {@code lastRuns} runs in which they were on the roster; NaN if none.
+     */
+    public synchronized double userRate(String type, String user, int lastRuns) {
+        int typeId = types.find(type);
+        int userId = users.find(user);
+        if (typeId < 0 || userId < 0) return Double.NaN;
+
+        int word = userId >>> 6;
+        long mask = 1L << userId;
+        int onRoster = 0;
+        int engaged = 0;
+        List<Integer> entries = entriesByType.getOrDefault(typeId, List.of());
+        int first = firstEntryOfRun(runStarts.size() - lastRuns);
+        int from = Collections.binarySearch(entries, first);
+        for (int i = from >= 0 ? from : -from - 1; i < entries.size(); i++) {
+            int e = entries.get(i);
+            MappedByteBuffer seg = segmentMap(entryInt(e, 12));
+            int base = (int) indexMap.getLong(e * INDEX_ENTRY + 16);
+            int words = seg.getInt(base + 20);
+            if (word >= words) continue;   // user joined the roster after this run
+            if ((seg.getLong(base + 24 + word * 8) & mask) == 0) continue;
+            onRoster++;
+            if ((seg.getLong(base + 24 + (words + word) * 8) & mask) != 0) engaged++;
+        }
+        return onRoster == 0 ? Double.NaN : engaged * 100.0 / onRoster;
+    }
+
+    /**
+     * Posts of the latest run whose engaged count differs from the post's
+     * previous run; posts new in the latest run are not listed.
+     */
+    public synchronized List<Change> changedSinceLastRun(String type) {
+        List<Change> changes = new ArrayList<>();
+        int typeId = types.find(type);
+        int latest = runStarts.size() - 1;
+        if (typeId < 0 || latest < 1) return changes;
+
+        // each post of the latest run against the entry just before it in the post's own list
+        int latestStart = firstEntryOfRun(latest);
+        for (int e = latestStart, n = entryCount(); e < n; e++) {
+            if (entryInt(e, 4) != typeId) continue;
+            int post = entryInt(e, 8);
+            List<Integer> history = entriesByPost.get(postKey(typeId, post));
+            int at = Collections.binarySearch(history, e);
+            if (at < 1 || history.get(at - 1) >= latestStart) continue;   // new in the latest run
+            int before = engagedCount(history.get(at - 1));
+            int after = engagedCount(e);
+            if (before != after) changes.add(new Change(posts.name(post), before, after));
+        }
+        return changes;
+    }
+
+    private int engagedCount(int entry) {
+        MappedByteBuffer seg = segmentMap(entryInt(entry, 12));
+        int base = (int) indexMap.getLong(entry * INDEX_ENTRY + 16);
+        int words = seg.getInt(base + 20);
+        int count = 0;
+        for (int w = 0; w < words; w++) count += Long.bitCount(seg.getLong(base + 24 + (words + w) * 8));
+        return count;
+    }
+
+    private int entryCount() {
+        return (int) (indexSize / INDEX_ENTRY);
+    }
+
+    private int entryInt(int entry, int field) {
+        return indexMap.getInt(entry * INDEX_ENTRY + field);
+    }
+
+    /* Index of the first entry with run >= run (entries are in run order). */
+    private int firstEntryOfRun(int run) {
+        int lo = 0;
+        int hi = entryCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entryInt(mid, 0) < run) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Report rows: the posts whose engagement changed since the previous run, per type. */
+    public List<String[]> reportRows() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Type", "Post", "Previous run", "This run", "Change"});
+        List<String> known;
+        synchronized (this) {
+            known = new ArrayList<>(types.names);
+        }
+        for (String type : known) {
+            for (Change change : changedSinceLastRun(type)) {
+                int delta = change.getAfter() - change.getBefore();
+                rows.add(new String[]{type, change.getPostUrl(), String.valueOf(change.getBefore()),
+                        String.valueOf(change.getAfter()), (delta > 0 ? "+" : "") + delta});
+            }
+        }
+        return rows.size() == 1 ? new ArrayList<>() : rows;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (segment != null) segment.close();
+            if (index != null) index.close();
+        } catch (IOException e) {
+            throw new RuntimeException("History close failed", e);
+        }
+        segmentMaps.clear();
+    }
+
+    /* ================= DICTIONARY FILES ================= */
+
+    private static List<String> readLines(Path path) throws IOException {
+        return Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : new ArrayList<>();
+    }
+
+    /* Appends the text and forces it to the device before returning. */
+    private static void appendForced(Path path, String text) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) out.write(bytes);
+            out.force(true);
+        }
+    }
+
+    private static boolean endsWithNewline(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() == 0) return true;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            ch.read(last, ch.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    /* Append-only name list; the line number is the id. */
+    private static class Dictionary {
+
+        final Path path;
+        final List<String> names;
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> pending = new ArrayList<>();
+
+        Dictionary(Path path) throws IOException {
+            this.path = path;
+            this.names = readLines(path);
+            // a name torn by a crash was never referenced; cut it so the next one starts clean
+            if (!names.isEmpty() && !endsWithNewline(path)) {
+                names.remove(names.size() - 1);
+                Files.write(path, names.isEmpty() ? new byte[0]
+                        : (String.join("\n", names) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            for (int i = 0; i < names.size(); i++) ids.put(names.get(i), i);
+        }
+
+        int id(String name) {
+            String key = key(name);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = names.size();
+                names.add(key);
+                ids.put(key, id);
+                pending.add(key);
+            }
+            return id;
+        }
+
+        int find(String name) {
+            Integer id = ids.get(key(name));
+            return id == null ? -1 : id;
+        }
+
+        private static String key(String name) {
+            return name.replace('\n', ' ').replace('\r', ' ');
+        }
+
+        String name(int id) {
+            return names.get(id);
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        void flush() throws IOException {
+            if (pending.isEmpty()) return;
+            File parent = path.toFile().getParentFile();
+            if (parent != null && !parent.exists()) parent.mkdirs();
+            StringBuilder lines = new StringBuilder();
+            for (String name : pending) lines.append(name).append('\n');
+            appendForced(path, lines.toString());
+            pending.clear();
+        }
+    }
+}
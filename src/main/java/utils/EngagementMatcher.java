@@ -0,0 +1,273 @@
+package utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Matches roster names against the names that engaged with a post.
+ *
+ * <p>The engager names are indexed once per post by their normalized form
+ * (NFKC, case folded, emoji and control characters removed, whitespace
+ * collapsed), so each roster lookup is a hash lookup. Names that still differ
+ * only by accents are caught by a second, accent-folded index. When fuzzy
+ * matching is enabled, a trigram index plus edit distance finds near matches
+ * (typos) and reports how confident the match is. A name whose words all
+ * appear, in order, in the other name (a missing middle name) matches at
+ * {@link #TOKEN_SUBSET} confidence.</p>
+ */
+public class EngagementMatcher {
+
+    public static final double EXACT = 1.0;
+    public static final double ACCENT_INSENSITIVE = 0.95;
+    public static final double TOKEN_SUBSET = 0.9;
+
+    /* ================= MATCH RESULT ================= */
+
+    public static class Match {
+
+        private static final Match NONE = new Match(null, 0);
+
+        private final String matchedName;
+        private final double confidence;
+
+        Match(String matchedName, double confidence) {
+            this.matchedName = matchedName;
+            this.confidence = confidence;
+        }
+
+        public boolean isMatched() {
+            return matchedName != null;
+        }
+
+        /** The engager name as it was displayed on the page, or null. */
+        public String getMatchedName() {
+            return matchedName;
+        }
+
+        /** 1.0 for an exact match, lower for accent-insensitive and fuzzy matches. */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        public boolean isExact() {
+            return confidence >= EXACT;
+        }
+    }
+
+    private final Map<String, String> exact = new HashMap<>();
+    private final Map<String, String> accentFolded = new HashMap<>();
+
+    private final boolean fuzzy;
+    private final double fuzzyThreshold;
+    private final List<String> fuzzyKeys = new ArrayList<>();
+    private final List<String> fuzzyNames = new ArrayList<>();
+    private final List<Integer> fuzzyGramCounts = new ArrayList<>();
+    private final Map<String, List<Integer>> trigramIndex = new HashMap<>();
+
+    public EngagementMatcher(Collection<String> engagerNames) {
+        this(engagerNames, false, 1.0);
+    }
+
+    /**
+     * @param engagerNames   names scraped from the post
+     * @param fuzzy          whether to build the near-match index
+     * @param fuzzyThreshold minimum similarity (0..1) for a fuzzy match
+     */
+    public EngagementMatcher(Collection<String> engagerNames, boolean fuzzy, double fuzzyThreshold) {
+        this.fuzzy = fuzzy;
+        this.fuzzyThreshold = fuzzyThreshold;
+
+        for (String name : engagerNames) {
+            String key = normalize(name);
+            if (key.isEmpty() || exact.putIfAbsent(key, name) != null) continue;
+
+            String folded = foldAccents(key);
+            accentFolded.putIfAbsent(folded, name);
+
+            if (fuzzy) {
+                int id = fuzzyKeys.size();
+                fuzzyKeys.add(folded);
+                fuzzyNames.add(name);
+                LinkedHashSet<String> grams = trigrams(folded);
+                fuzzyGramCounts.add(grams.size());
+                for (String gram : grams) {
+                    trigramIndex.computeIfAbsent(gram, k -> new ArrayList<>()).add(id);
+                }
+            }
+        }
+    }
+
+    /** Builds a matcher configured from matcher.fuzzy / matcher.fuzzy.threshold. */
+    public static EngagementMatcher fromConfig(Collection<String> engagerNames) {
+        return new EngagementMatcher(
+                engagerNames,
+                ConfigReader.getBoolean("matcher.fuzzy", false),
+                Double.parseDouble(ConfigReader.get("matcher.fuzzy.threshold", "0.85"))
+        );
+    }
+
+    public int size() {
+        return exact.size();
+    }
+
+    public boolean contains(String rosterName) {
+        return match(rosterName).isMatched();
+    }
+
+    public Match match(String rosterName) {
+        String key = normalize(rosterName);
+        if (key.isEmpty()) return Match.NONE;
+
+        String name = exact.get(key);
+        if (name != null) return new Match(name, EXACT);
+
+        String folded = foldAccents(key);
+        name = accentFolded.get(folded);
+        if (name != null) return new Match(name, ACCENT_INSENSITIVE);
+
+        return fuzzy ? fuzzyMatch(folded) : Match.NONE;
+    }
+
+    /* ================= NORMALIZATION ================= */
+
+    /**
+     * NFKC, full case fold, drops emoji/symbols/control characters and
+     * collapses runs of whitespace to a single space.
+     */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        String nfkc = Normalizer.normalize(s, Normalizer.Form.NFKC);
+        // upper then lower folds special cases such as 'ß' -> 'ss'
+        String folded = nfkc.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+
+        StringBuilder out = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); ) {
+            int cp = folded.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (isDropped(cp)) continue;
+
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.appendCodePoint(cp);
+        }
+        return out.toString();
+    }
+
+    private static boolean isDropped(int cp) {
+        switch (Character.getType(cp)) {
+            case Character.OTHER_SYMBOL:       // emoji, pictographs
+            case Character.MODIFIER_SYMBOL:    // skin tone modifiers
+            case Character.CONTROL:
+            case Character.FORMAT:             // zero-width joiners, direction marks
+            case Character.UNASSIGNED:
+            case Character.PRIVATE_USE:
+            case Character.SURROGATE:
+                return true;
+            case Character.NON_SPACING_MARK:   // variation selectors
+                return cp >= 0xFE00 && cp <= 0xFE0F;
+            default:
+                return false;
+        }
+    }
+
+    private static String foldAccents(String normalized) {
+        String decomposed = Normalizer.normalize(normalized, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) out.append(c);
+        }
+        return out.toString();
+    }
+
+    /* ================= FUZZY FALLBACK ================= */
+
+    private Match fuzzyMatch(String folded) {
+        LinkedHashSet<String> queryGrams = trigrams(folded);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            List<Integer> ids = trigramIndex.get(gram);
+            if (ids == null) continue;
+            for (Integer id : ids) shared.merge(id, 1, Integer::sum);
+        }
+
+        int bestId = -1;
+        double best = 0;
+        for (Map.Entry<Integer, Integer> candidate : shared.entrySet()) {
+            int id = candidate.getKey();
+            double similarity = isTokenSubset(folded, fuzzyKeys.get(id)) ? TOKEN_SUBSET : 0;
+
+            // cheap Dice filter before computing edit distance
+            double dice = 2.0 * candidate.getValue() / (queryGrams.size() + fuzzyGramCounts.get(id));
+            if (dice >= fuzzyThreshold / 2) similarity = Math.max(similarity, similarity(folded, fuzzyKeys.get(id)));
+
+            if (similarity > best) {
+                best = similarity;
+                bestId = id;
+            }
+        }
+        return bestId >= 0 && best >= fuzzyThreshold
+                ? new Match(fuzzyNames.get(bestId), best)
+                : Match.NONE;
+    }
+
+    /* True if every word of the shorter name (at least two) appears, in order, in the longer one. */
+    private static boolean isTokenSubset(String a, String b) {
+        String[] x = a.split(" ");
+        String[] y = b.split(" ");
+        String[] shorter = x.length <= y.length ? x : y;
+        String[] longer = shorter == x ? y : x;
+        if (shorter.length < 2 || shorter.length == longer.length) return false;
+
+        int next = 0;
+        for (String word : longer) {
+            if (next < shorter.length && word.equals(shorter[next])) next++;
+        }
+        return next == shorter.length;
+    }
+
+    private static LinkedHashSet<String> trigrams(String s) {
+        String padded = "  " + s + " ";
+        LinkedHashSet<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /** 1 - levenshtein / longer length. */
+    static double similarity(String a, String b) {
+        int max = Math.max(a.length(), b.length());
+        if (max == 0) return 1.0;
+
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return 1.0 - (double) prev[b.length()] / max;
+    }
+}
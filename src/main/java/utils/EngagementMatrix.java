@@ -0,0 +1,320 @@
+package utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The audit's results in memory: for each engagement type, one bit per post
+ * and roster user (set when the user engaged). Users and posts are
+ * dictionary-encoded to ints, and each post's row is a slice of a
+ * {@code long[]}, so 50k users cost about 6 KB per post and type. Counts and
+ * percentages come from {@link Long#bitCount}. The CSV rows and the HTML
+ * report are rendered from here; the "Yes %" column is always computed, never
+ * parsed back.
+ *
+ * <p>Only the few meta columns (Total, Match Notes, Status, Executed At) are
+ * kept as strings, once per post. A post whose Status says it failed is kept
+ * and reported as such, with blank cells, but left out of every count and
+ * percentage.</p>
+ */
+public class EngagementMatrix {
+
+    private static final Set<String> META_COLUMNS =
+            Set.of("posturl", "total", "yes %", "executed at (ist)", "match notes", "status");
+
+    private static final String POST_URL = "PostUrl";
+    private static final String YES_PERCENT = "Yes %";
+
+    /** True for the columns of an output row that are not roster users. */
+    public static boolean isMetaColumn(String column) {
+        return META_COLUMNS.contains(column.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /* ================= ONE ENGAGEMENT TYPE ================= */
+
+    private static class Layer {
+
+        /* column order of the output rows, taken from the first row recorded */
+        final List<String> columns = new ArrayList<>();
+        final List<Integer> rosterColumns = new ArrayList<>();   // user id per roster column
+        final List<Integer> posts = new ArrayList<>();            // post ids in record order
+        final Map<Integer, Map<String, String>> meta = new HashMap<>();
+        final Set<Integer> failed = new HashSet<>();
+        long[] bits = new long[0];
+    }
+
+    private final Map<String, Integer> userIds = new HashMap<>();
+    private final List<String> users = new ArrayList<>();
+    private final Map<String, Integer> postIds = new HashMap<>();
+    private final List<String> postUrls = new ArrayList<>();
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+
+    /* longs per post row; grows when the roster outgrows it */
+    private int stride = 1;
+
+    /* ================= RECORD ================= */
+
+    /**
+     * Stores a finished row (roster columns "YES"/"NO" plus meta columns) for
+     * the type. Recording the same post again replaces it.
+     */
+    public synchronized void record(String type, Map<String, String> row) {
+        Layer layer = layers.computeIfAbsent(type, t -> new Layer());
+        if (layer.columns.isEmpty()) {
+            for (String column : row.keySet()) {
+                layer.columns.add(column);
+                if (!isMetaColumn(column)) layer.rosterColumns.add(userId(column));
+            }
+        }
+
+        // register new users first: that may widen the rows
+        for (String column : row.keySet()) {
+            if (!isMetaColumn(column)) userId(column);
+        }
+
+        int post = postId(row.get(POST_URL));
+        if (!layer.meta.containsKey(post)) layer.posts.add(post);
+        ensureCapacity(layer, post);
+
+        Map<String, String> meta = new LinkedHashMap<>();
+        int base = post * stride;
+        Arrays.fill(layer.bits, base, base + stride, 0L);
+        for (Map.Entry<String, String> cell : row.entrySet()) {
+            String column = cell.getKey();
+            if (isMetaColumn(column)) {
+                if (!column.equals(POST_URL) && !column.equals(YES_PERCENT)) meta.put(column, cell.getValue());
+            } else if ("YES".equalsIgnoreCase(cell.getValue())) {
+                int user = userId(column);
+                layer.bits[base + (user >>> 6)] |= 1L << user;
+            }
+        }
+        layer.meta.put(post, meta);
+        if (PostFailure.isFailed(row)) layer.failed.add(post);
+        else layer.failed.remove(post);
+    }
+
+    private int userId(String name) {
+        Integer id = userIds.get(name);
+        if (id == null) {
+            id = users.size();
+            userIds.put(name, id);
+            users.add(name);
+            if (users.size() > stride * 64) widen(stride * 2);
+        }
+        return id;
+    }
+
+    private int postId(String postUrl) {
+        String key = postUrl == null ? "" : postUrl;
+        Integer id = postIds.get(key);
+        if (id == null) {
+            id = postUrls.size();
+            postIds.put(key, id);
+            postUrls.add(key);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(Layer layer, int post) {
+        int needed = (post + 1) * stride;
+        if (layer.bits.length < needed) {
+            layer.bits = Arrays.copyOf(layer.bits, Math.max(needed, layer.bits.length * 2));
+        }
+    }
+
+    /* Re-lays every post row out with more longs per post. */
+    private void widen(int newStride) {
+        for (Layer layer : layers.values()) {
+            int rows = layer.bits.length / stride;
+            long[] wider = new long[rows * newStride];
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(layer.bits, r * stride, wider, r * newStride, stride);
+            }
+            layer.bits = wider;
+        }
+        stride = newStride;
+    }
+
+    /* ================= QUERIES ================= */
+
+    public synchronized boolean engaged(String type, String postUrl, String user) {
+        Layer layer = layers.get(type);
+        Integer post = postIds.get(postUrl);
+        Integer id = userIds.get(user);
+        return layer != null && post != null && id != null && layer.meta.containsKey(post) && bit(layer, post, id);
+    }
+
+    private boolean bit(Layer layer, int post, int user) {
+        return (layer.bits[post * stride + (user >>> 6)] & (1L << user)) != 0;
+    }
+
+    /** Roster users who engaged with the post. */
+    public synchronized int yesCount(String type, String postUrl) {
+        Layer layer = layers.get(type);
+        Integer post = postIds.get(postUrl);
+        return layer == null || post == null || !layer.meta.containsKey(post) ? 0 : yesCount(layer, post);
+    }
+
+    private int yesCount(Layer layer, int post) {
+        int count = 0;
+        for (int w = post * stride, end = w + stride; w < end; w++) count += Long.bitCount(layer.bits[w]);
+        return count;
+    }
+
+    /** Share of the roster that engaged with the post, 0..100. */
+    public synchronized double postPercent(String type, String postUrl) {
+        Layer layer = layers.get(type);
+        Integer post = postIds.get(postUrl);
+        if (layer == null || post == null || !layer.meta.containsKey(post)) return 0;
+        return percent(yesCount(layer, post), layer.rosterColumns.size());
+    }
+
+    /** Share of the collected (not failed) posts the user engaged with, 0..100. */
+    public synchronized double userPercent(String type, String user) {
+        Layer layer = layers.get(type);
+        Integer id = userIds.get(user);
+        if (layer == null || id == null) return 0;
+        return percent(userCount(layer, id), layer.posts.size() - layer.failed.size());
+    }
+
+    private int userCount(Layer layer, int user) {
+        int word = user >>> 6;
+        long mask = 1L << user;
+        int count = 0;
+        for (int post : layer.posts) {
+            if ((layer.bits[post * stride + word] & mask) != 0) count++;
+        }
+        return count;
+    }
+
+    /** True if the post was recorded with a failed Status (its cells are unknown). */
+    public synchronized boolean isFailed(String type, String postUrl) {
+        Layer layer = layers.get(type);
+        Integer post = postIds.get(postUrl);
+        return layer != null && post != null && layer.failed.contains(post);
+    }
+
+    private static double percent(int count, int of) {
+        return of == 0 ? 0 : count * 100.0 / of;
+    }
+
+    /** Posts recorded for the type, in the order they were recorded. */
+    public synchronized List<String> getPosts(String type) {
+        List<String> posts = new ArrayList<>();
+        Layer layer = layers.get(type);
+        if (layer != null) {
+            for (int post : layer.posts) posts.add(postUrls.get(post));
+        }
+        return posts;
+    }
+
+    /** Roster users of the type, in column order. */
+    public synchronized List<String> getRoster(String type) {
+        List<String> roster = new ArrayList<>();
+        Layer layer = layers.get(type);
+        if (layer != null) {
+            for (int user : layer.rosterColumns) roster.add(users.get(user));
+        }
+        return roster;
+    }
+
+    /** Types with at least one recorded post. */
+    public synchronized List<String> getTypes() {
+        return new ArrayList<>(layers.keySet());
+    }
+
+    /** Approximate heap used by the bit rows. */
+    public synchronized long getBitBytes() {
+        long bytes = 0;
+        for (Layer layer : layers.values()) bytes += layer.bits.length * 8L;
+        return bytes;
+    }
+
+    /* ================= VIEWS ================= */
+
+    /** The post's output row, in the column order of the first row recorded. */
+    public synchronized Map<String, String> row(String type, String postUrl) {
+        Layer layer = layers.get(type);
+        Integer post = postIds.get(postUrl);
+        Map<String, String> row = new LinkedHashMap<>();
+        if (layer == null || post == null || !layer.meta.containsKey(post)) return row;
+
+        for (String column : layer.columns) row.put(column, cell(layer, post, column));
+        return row;
+    }
+
+    private String cell(Layer layer, int post, String column) {
+        if (column.equals(POST_URL)) return postUrls.get(post);
+        boolean failed = layer.failed.contains(post);
+        if (column.equals(YES_PERCENT)) {
+            if (failed) return "";
+            return String.format(Locale.ROOT, "%.2f%%", percent(yesCount(layer, post), layer.rosterColumns.size()));
+        }
+        if (isMetaColumn(column)) {
+            String value = layer.meta.get(post).get(column);
+            return value == null ? "" : value;
+        }
+        if (failed) return "";
+        return bit(layer, post, userIds.get(column)) ? "YES" : "NO";
+    }
+
+    /** Writes every recorded post of the type as a CSV file. */
+    public void writeCsv(String type, String filePath) {
+        try (CsvAppender out = CsvUtils.openAppender(filePath, false)) {
+            for (String postUrl : getPosts(type)) out.append(row(type, postUrl));
+        }
+    }
+
+    /**
+     * Writes the HTML report for the type: one column per post, one row per
+     * field, plus each user's engagement rate over the collected posts. Posts
+     * under 50% and failed posts count as negatives.
+     */
+    public void writeReport(String type, String outputHtml, String formulaText) {
+        String[] headers;
+        List<String[]> table = new ArrayList<>();
+        int negatives = 0;
+
+        synchronized (this) {
+            Layer layer = layers.get(type);
+            if (layer == null || layer.posts.isEmpty()) {
+                System.out.println("No " + type + " results to report");
+                return;
+            }
+            int postCount = layer.posts.size();
+            headers = new String[postCount + 2];
+            headers[0] = "Field";
+            for (int p = 0; p < postCount; p++) {
+                int post = layer.posts.get(p);
+                headers[p + 1] = postUrls.get(post);
+                if (layer.failed.contains(post)
+                        || percent(yesCount(layer, post), layer.rosterColumns.size()) < 50.0) negatives++;
+            }
+            headers[postCount + 1] = "User Yes %";
+
+            for (String column : layer.columns) {
+                if (column.equals(POST_URL)) continue;
+                String[] line = new String[postCount + 2];
+                line[0] = column;
+                for (int p = 0; p < postCount; p++) line[p + 1] = cell(layer, layer.posts.get(p), column);
+                line[postCount + 1] = isMetaColumn(column) ? ""
+                        : String.format(Locale.ROOT, "%.2f%%",
+                                percent(userCount(layer, userIds.get(column)), postCount - layer.failed.size()));
+                table.add(line);
+            }
+        }
+
+        File parent = new File(outputHtml).getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        System.out.println("Generating HTML report: " + outputHtml);
+        HtmlReportGenerator.generateHtmlReport(outputHtml, table, headers, headers.length - 2, negatives, formulaText);
+    }
+}
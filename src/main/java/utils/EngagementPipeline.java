@@ -0,0 +1,231 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Visits every post once and runs each enabled {@link EngagementCollector} on
+ * the same page, instead of one full pass over the posts per engagement type.
+ * Each type still gets its own journal, output CSV and HTML report.
+ *
+ * <p>Results are kept in an {@link EngagementMatrix}; the CSV rows and the
+ * HTML reports are rendered from it. An {@link EngagementDashboard} joining
+ * all types is written alongside the per-type reports.</p>
+ *
+ * <p>A post that fails is retried after the others (see
+ * {@link WebDriverPool#process(List, java.util.function.BiFunction, java.util.function.Consumer,
+ * java.util.function.BiFunction)}) and, if it still fails, reported with a
+ * FAILED Status instead of ending the run.</p>
+ *
+ * <p>Types are enabled with the comma-separated engagement.types config key
+ * (overridable with -Dengagement.types=likes,reposts).</p>
+ */
+public class EngagementPipeline {
+
+    /* ================= ONE ENGAGEMENT TYPE ================= */
+
+    private static class Channel {
+
+        final EngagementCollector collector;
+        final String outputCsv;
+        final String outputHtml;
+        final String reportTitle;
+
+        Channel(EngagementCollector collector, String outputCsv, String outputHtml, String reportTitle) {
+            this.collector = collector;
+            this.outputCsv = outputCsv;
+            this.outputHtml = outputHtml;
+            this.reportTitle = reportTitle;
+        }
+    }
+
+    private final WebDriverPool pool;
+    private final Set<String> enabledTypes;
+    private final List<Channel> channels = new ArrayList<>();
+    private final EngagementMatrix matrix = new EngagementMatrix();
+
+    public EngagementPipeline(WebDriverPool pool) {
+        this.pool = pool;
+        this.enabledTypes = new LinkedHashSet<>();
+        for (String type : ConfigReader.get("engagement.types", "likes,comments,reposts").split(",")) {
+            if (!type.isBlank()) enabledTypes.add(type.trim().toLowerCase());
+        }
+    }
+
+    /**
+     * Adds a collector, which runs in the order added. Types missing from
+     * engagement.types are skipped.
+     */
+    public EngagementPipeline add(EngagementCollector collector, String outputCsv, String outputHtml,
+                                  String reportTitle) {
+        if (enabledTypes.contains(collector.getType().toLowerCase())) {
+            channels.add(new Channel(collector, outputCsv, outputHtml, reportTitle));
+        } else {
+            System.out.println("Skipping disabled engagement type: " + collector.getType());
+        }
+        return this;
+    }
+
+    /* ================= RUN ================= */
+
+    /**
+     * Collects every enabled type for every row, journaling and appending each
+     * type's row to its own output CSV as posts finish, then writes the reports.
+     */
+    public void run(List<Map<String, String>> rows) {
+        if (channels.isEmpty()) {
+            System.out.println("No engagement types enabled, nothing to collect");
+            return;
+        }
+
+        CheckpointJournal[] journals = new CheckpointJournal[channels.size()];
+        CsvAppender[] outputs = new CsvAppender[channels.size()];
+        try {
+            for (int i = 0; i < channels.size(); i++) {
+                journals[i] = CheckpointJournal.fromConfig(channels.get(i).collector.getType());
+                outputs[i] = CsvUtils.openAppender(channels.get(i).outputCsv, false);
+            }
+
+            Consumer<List<Map<String, String>>> append = results -> {
+                for (int i = 0; i < outputs.length; i++) {
+                    String type = channels.get(i).collector.getType();
+                    Map<String, String> result = results.get(i);
+                    matrix.record(type, result);
+                    outputs[i].append(matrix.row(type, result.get("PostUrl")));
+                }
+            };
+            List<List<Map<String, String>>> visited = pool.process(rows,
+                    (session, row) -> visit(session, row, journals), append,
+                    (row, failure) -> failedRows(row, failure, journals));
+
+            // retried posts were appended late; put each output back in post order
+            for (int i = 0; i < outputs.length; i++) {
+                String type = channels.get(i).collector.getType();
+                List<Map<String, String>> ordered = new ArrayList<>(visited.size());
+                for (List<Map<String, String>> results : visited) {
+                    ordered.add(matrix.row(type, results.get(i).get("PostUrl")));
+                }
+                outputs[i].reorder(ordered);
+            }
+        } finally {
+            for (int i = 0; i < channels.size(); i++) {
+                if (outputs[i] != null) outputs[i].close();
+                if (journals[i] != null) journals[i].close();
+            }
+        }
+        EngagementCache.shared().save();
+        System.out.println("Engagement matrix: " + matrix.getBitBytes() + " bytes of bit rows");
+
+        recordHistory();
+        StepTimings.time("reports", this::writeReports);
+    }
+
+    /*
+     * Writes the per-type reports and the cross-type dashboard at the same time
+     * on a bounded pool (report.threads), so the slowest one sets the time.
+     */
+    private void writeReports() {
+        int threads = Math.max(1, Math.min(ConfigReader.getInt("report.threads", 4), channels.size() + 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, String> csvByType = new LinkedHashMap<>();
+            for (Channel channel : channels) csvByType.put(channel.collector.getType(), channel.outputCsv);
+
+            List<Future<?>> jobs = new ArrayList<>();
+            jobs.add(EngagementDashboard.generate(csvByType, ConfigReader.get("dashboard.html",
+                    "src/test/resources/testOutput/EngagementDashboard.html"), executor));
+            for (Channel channel : channels) {
+                jobs.add(executor.submit(() ->
+                        matrix.writeReport(channel.collector.getType(), channel.outputHtml, channel.reportTitle)));
+            }
+            for (Future<?> job : jobs) {
+                try {
+                    job.get();
+                } catch (ExecutionException e) {
+                    System.out.println("Report failed: " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /* Adds this run to the history store, whose changes since the last run show in the reports. */
+    private void recordHistory() {
+        EngagementHistory history = EngagementHistory.fromConfig();
+        if (history == null) return;
+        try (EngagementHistory store = history) {
+            long start = System.nanoTime();
+            int run = store.append(matrix);
+            StepTimings.record("history.append", System.nanoTime() - start);
+            List<String[]> changes = StepTimings.time("history.changes", store::reportRows);
+            ReportSections.register("Engagement changed since the last run", () -> changes);
+            System.out.println("Stored run " + run + " in the engagement history");
+        }
+    }
+
+    /** The results of the last {@link #run}. */
+    public EngagementMatrix getMatrix() {
+        return matrix;
+    }
+
+    /*
+     * Rows for a post that could not be visited: types journaled before the
+     * failure keep their result, the others are reported as failed.
+     */
+    private List<Map<String, String>> failedRows(Map<String, String> row, PostFailure failure,
+                                                 CheckpointJournal[] journals) {
+        List<Map<String, String>> results = new ArrayList<>(channels.size());
+        for (int i = 0; i < channels.size(); i++) {
+            Map<String, String> typeRow = new LinkedHashMap<>(row);
+            if (journals[i].reuse(typeRow)) {
+                typeRow.putIfAbsent(PostFailure.STATUS, PostFailure.OK);
+                results.add(typeRow);
+            } else {
+                results.add(failure.toRow(row));
+            }
+        }
+        return results;
+    }
+
+    /* Opens the post (only if some type is not already journaled) and runs each collector on it. */
+    private List<Map<String, String>> visit(WebDriverPool.Session session, Map<String, String> row,
+                                            CheckpointJournal[] journals) {
+        String postUrl = row.get("PostUrl");
+        boolean opened = false;
+
+        List<Map<String, String>> results = new ArrayList<>(channels.size());
+        for (int i = 0; i < channels.size(); i++) {
+            Map<String, String> typeRow = new LinkedHashMap<>(row);
+            if (journals[i].reuse(typeRow)) {
+                typeRow.putIfAbsent(PostFailure.STATUS, PostFailure.OK);   // journaled before Status existed
+                results.add(typeRow);
+                continue;
+            }
+            if (!opened) {
+                StepTimings.time("post.navigate", () -> RateGovernor.shared().navigate(session.getDriver(), postUrl));
+                opened = true;
+            }
+            EngagementCollector collector = channels.get(i).collector;
+            Map<String, String> result = StepTimings.time("collect." + collector.getType(),
+                    () -> collector.collect(session, typeRow));
+            journals[i].append(postUrl, result);
+            results.add(result);
+        }
+        if (opened) {
+            PageLoadStats.record(session.getDriver());
+        }
+        return results;
+    }
+}
@@ -1,97 +1,356 @@
 package utils;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
 public class HtmlReportGenerator {
-    public static void generateHtmlReport(String filePath, List<String[]> tableData, String[] headers, int totalRecords, int negativeTestCaseCount, String formulaText) {
-        StringBuilder html = new StringBuilder();
-        // Build unique values per column (preserve insertion order)
-        List<LinkedHashSet<String>> uniques = new ArrayList<>();
+
+    /**
+     * Columns with more distinct values than this get a search box instead of a
+     * multi-select, and no bitset index.
+     */
+    static final int MAX_INDEXED_VALUES = 64;
+
+    /* ========= PRECOMPILED FRAGMENTS (built once per JVM) ========= */
+
+    private static final String HEAD =
+            "<!doctype html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Test Data Report</title>\n" +
+            "<style>\n" +
+            "body{font-family:Arial,Helvetica,sans-serif;margin:20px;}\n" +
+            ".card{display:inline-block;padding:16px;margin:8px;background:#f8f9fa;border:1px solid #ddd;border-radius:8px;width:200px;text-align:center;}\n" +
+            ".timestamp{ text-align:center;margin-bottom:12px;color:#555;}\n" +
+            ".viewport{height:70vh;overflow:auto;margin-top:16px;border:1px solid #ddd;}\n" +
+            ".table-info{margin-top:16px;color:#555;}\n" +
+            "table.display{border-collapse:collapse;width:100%;}\n" +
+            "table.display thead{position:sticky;top:0;z-index:1;}\n" +
+            "table.display th, table.display td{border:1px solid #ddd;padding:8px;vertical-align:top;}\n" +
+            "table.display th{background:#f2f2f2;text-align:left;position:relative;padding-right:8px;}\n" +
+            "table.display tbody td{white-space:nowrap;overflow:hidden;text-overflow:ellipsis;max-width:320px;}\n" +
+            "table.display tr.spacer td{padding:0;border:0;}\n" +
+            ".filter-select{width:100%;box-sizing:border-box;margin-top:6px;}\n" +
+            ".filter-actions{margin-top:6px;text-align:right;}\n" +
+            ".header-link small{font-size:0.85em;color:#007bff;}\n" +
+            ".yes-cell{color:green;font-weight:bold;}\n" +
+            ".no-cell{color:red;font-weight:bold;}\n" +
+            ".section{text-align:center;margin:8px;}\n" +
+            "table.summary{width:auto;margin:0 auto;}\n" +
+            "</style>\n" +
+            // Inline JS (vanilla): rows are dictionary-encoded JSON, filters combine
+            // precomputed per-value bitsets, and only the rows in view are rendered.
+            "<script>\n" +
+            "var R = {rowHeight: 34};\n" +
+            "function decodeBits(b64, words){ var bin = atob(b64); var bytes = new Uint8Array(words*4); for(var i=0;i<bin.length;i++) bytes[i]=bin.charCodeAt(i); return new Uint32Array(bytes.buffer); }\n" +
+            "function cellClass(v){ var t = v.trim().toUpperCase(); return t==='YES' ? 'yes-cell' : (t==='NO' ? 'no-cell' : ''); }\n" +
+            "function buildFilters(){\n" +
+            "  var ths = document.querySelectorAll('#dataTable tr.filter-row th');\n" +
+            "  for(var c=0;c<ths.length;c++){ var th = ths[c], ctl;\n" +
+            "    if(R.index[c]){ ctl = document.createElement('select'); ctl.multiple = true; ctl.size = 5; ctl.className = 'col-filter filter-select';\n" +
+            "      R.dict[c].forEach(function(v,id){ var o = document.createElement('option'); o.value = id; o.textContent = v.length > 80 ? v.substring(0,77) + '...' : v; ctl.appendChild(o); });\n" +
+            "      ctl.addEventListener('change', applyColumnFilters);\n" +
+            "    } else { ctl = document.createElement('input'); ctl.type = 'search'; ctl.placeholder = 'Search'; ctl.className = 'col-search filter-select'; ctl.addEventListener('input', applyColumnFilters); }\n" +
+            "    ctl.setAttribute('data-col', c); th.appendChild(ctl);\n" +
+            "    var actions = document.createElement('div'); actions.className = 'filter-actions'; var b = document.createElement('button'); b.type = 'button'; b.className = 'clear-filter'; b.textContent = 'Clear'; b.setAttribute('data-col', c);\n" +
+            "    b.addEventListener('click', function(){ clearFilter(this.getAttribute('data-col')); }); actions.appendChild(b); th.appendChild(actions);\n" +
+            "  }\n" +
+            "}\n" +
+            "function applyColumnFilters(){\n" +
+            "  var mask = null, searches = [];\n" +
+            "  document.querySelectorAll('.col-filter').forEach(function(s){ var c = +s.getAttribute('data-col'); var sel = s.selectedOptions; if(sel.length===0) return;\n" +
+            "    var colMask = new Uint32Array(R.words); for(var i=0;i<sel.length;i++){ var bits = R.index[c][+sel[i].value]; for(var w=0;w<R.words;w++) colMask[w] |= bits[w]; }\n" +
+            "    if(mask===null){ mask = colMask; } else { for(var w=0;w<R.words;w++) mask[w] &= colMask[w]; } });\n" +
+            "  document.querySelectorAll('.col-search').forEach(function(s){ var q = s.value.trim().toLowerCase(); if(!q) return; var c = +s.getAttribute('data-col');\n" +
+            "    searches.push({col:c, hit:R.dict[c].map(function(v){ return v.toLowerCase().indexOf(q) !== -1; })}); });\n" +
+            "  var visible = [];\n" +
+            "  if(mask===null){ for(var r=0;r<R.rows.length;r++) visible.push(r); }\n" +
+            "  else { for(var w=0;w<R.words;w++){ var bits = mask[w]; while(bits){ var low = bits & -bits; visible.push(w*32 + 31 - Math.clz32(low)); bits ^= low; } } }\n" +
+            "  searches.forEach(function(s){ visible = visible.filter(function(r){ return s.hit[R.rows[r][s.col]]; }); });\n" +
+            "  R.visible = visible; R.viewport.scrollTop = 0; renderWindow();\n" +
+            "}\n" +
+            "function clearFilter(col){ var ctl = document.querySelector('[data-col=\"'+col+'\"].filter-select'); if(!ctl) return; if(ctl.options){ Array.prototype.forEach.call(ctl.options,function(o){ o.selected=false; }); } else { ctl.value=''; } applyColumnFilters(); }\n" +
+            "function spacer(height){ var tr = document.createElement('tr'); tr.className = 'spacer'; var td = document.createElement('td'); td.colSpan = R.dict.length; td.style.height = height + 'px'; tr.appendChild(td); return tr; }\n" +
+            "function renderWindow(){\n" +
+            "  var n = R.visible.length, h = R.rowHeight;\n" +
+            "  var first = Math.max(0, Math.floor(R.viewport.scrollTop / h) - 10);\n" +
+            "  var last = Math.min(n, first + Math.ceil(R.viewport.clientHeight / h) + 20);\n" +
+            "  var frag = document.createDocumentFragment(); frag.appendChild(spacer(first * h));\n" +
+            "  for(var i=first;i<last;i++){ var row = R.rows[R.visible[i]], tr = document.createElement('tr');\n" +
+            "    for(var c=0;c<row.length;c++){ var v = R.dict[c][row[c]], td = document.createElement('td'); td.textContent = v; td.title = v; var k = cellClass(v); if(k) td.className = k; tr.appendChild(td); }\n" +
+            "    frag.appendChild(tr); }\n" +
+            "  frag.appendChild(spacer((n - last) * h));\n" +
+            "  R.tbody.textContent = ''; R.tbody.appendChild(frag);\n" +
+            "  document.getElementById('tableInfo').textContent = 'Showing ' + n + ' of ' + R.rows.length + ' rows';\n" +
+            "  var sample = R.tbody.rows[1]; if(sample && sample.className !== 'spacer' && Math.abs(sample.offsetHeight - h) > 1){ R.rowHeight = sample.offsetHeight; renderWindow(); }\n" +
+            "}\n" +
+            "document.addEventListener('DOMContentLoaded', function(){\n" +
+            "  R.rows = JSON.parse(document.getElementById('reportRows').textContent);\n" +
+            "  var meta = JSON.parse(document.getElementById('reportMeta').textContent);\n" +
+            "  R.dict = meta.dict; R.words = meta.words;\n" +
+            "  R.index = meta.index.map(function(col){ return col ? col.map(function(b){ return decodeBits(b, R.words); }) : null; });\n" +
+            "  R.viewport = document.getElementById('tableViewport'); R.tbody = document.getElementById('dataTable').tBodies[0];\n" +
+            "  var pending = false; R.viewport.addEventListener('scroll', function(){ if(pending) return; pending = true; requestAnimationFrame(function(){ pending = false; renderWindow(); }); });\n" +
+            "  buildFilters(); applyColumnFilters();\n" +
+            "});\n" +
+            "</script>\n" +
+            "</head>\n<body>\n";
+    private static final String TIMESTAMP_OPEN = "<div class='timestamp'>Report generated on: ";
+    private static final String TOTAL_OPEN = "</div>\n<div style='text-align:center;'>\n<div class='card'><h3>Total Records</h3><p>";
+    private static final String FAILED_OPEN = "</p></div>\n<div class='card'><h3>Failed Test Cases</h3><p>";
+    private static final String CARDS_CLOSE = "</p></div>\n</div>\n";
+    private static final String SECTION_OPEN = "<div class='section'><h3>";
+    private static final String SECTION_TABLE_OPEN = "</h3>\n<table class='display summary'>\n";
+    private static final String SECTION_CLOSE = "</table></div>\n";
+    private static final String FORMULA_OPEN = "<div style='text-align:center;'><h3>Expected Condition Formula</h3><p>";
+    private static final String TABLE_OPEN = "</p></div>\n<div id='tableInfo' class='table-info'></div>\n<div id='tableViewport' class='viewport'>\n<table id='dataTable' class='display'>\n<thead>\n<tr>";
+    private static final String FILTER_ROW_OPEN = "</tr>\n<tr class='filter-row'>";
+    private static final String ROWS_OPEN = "</tr>\n</thead>\n<tbody></tbody>\n</table>\n</div>\n<script type='application/json' id='reportRows'>[";
+    private static final String META_OPEN = "]</script>\n<script type='application/json' id='reportMeta'>{\"words\":";
+    private static final String DOCUMENT_CLOSE = "}</script>\n<noscript>This report needs JavaScript to display its table.</noscript>\n</body>\n</html>";
+
+    /**
+     * Writes the report to filePath, streaming through a buffered writer so the
+     * document is never held in memory. tableData is read once, so it can be a
+     * source that produces rows lazily.
+     */
+    public static void generateHtmlReport(String filePath, Iterable<String[]> tableData, String[] headers, int totalRecords, int negativeTestCaseCount, String formulaText) {
+        generateHtmlReport(filePath, tableData, headers, totalRecords, negativeTestCaseCount, formulaText,
+                Collections.emptyMap());
+    }
+
+    /**
+     * Same, with summary tables that belong to this report only (title to
+     * rows, header row first), rendered after the registered ReportSections.
+     */
+    public static void generateHtmlReport(String filePath, Iterable<String[]> tableData, String[] headers, int totalRecords, int negativeTestCaseCount, String formulaText, Map<String, List<String[]>> ownSections) {
+        try (Writer w = Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            renderHtmlReport(w, tableData, headers, totalRecords, negativeTestCaseCount, formulaText, ownSections);
+        } catch (IOException e) {
+            throw new RuntimeException("HTML write failed", e);
+        }
+    }
+
+    /**
+     * Renders the report to any writer; the caller owns (and closes) it.
+     *
+     * <p>Rows are embedded as dictionary-encoded JSON (each cell is an index
+     * into its column's value list). For every column with at most
+     * {@link #MAX_INDEXED_VALUES} distinct values a value-to-rows bitset is
+     * embedded too, so the page filters by OR-ing/AND-ing bitsets instead of
+     * re-scanning rows, and renders only the rows in view.</p>
+     */
+    public static void renderHtmlReport(Writer out, Iterable<String[]> tableData, String[] headers, int totalRecords, int negativeTestCaseCount, String formulaText) throws IOException {
+        renderHtmlReport(out, tableData, headers, totalRecords, negativeTestCaseCount, formulaText, Collections.emptyMap());
+    }
+
+    public static void renderHtmlReport(Writer out, Iterable<String[]> tableData, String[] headers, int totalRecords, int negativeTestCaseCount, String formulaText, Map<String, List<String[]>> ownSections) throws IOException {
         int cols = headers.length;
+        List<ColumnIndex> columns = new ArrayList<>();
+        for (int c = 0; c < cols; c++) {
+            columns.add(new ColumnIndex());
+        }
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+
+        out.write(HEAD);
+        out.write(TIMESTAMP_OPEN);
+        out.write(timestamp);
+        out.write(TOTAL_OPEN);
+        out.write(Integer.toString(totalRecords));
+        out.write(FAILED_OPEN);
+        out.write(Integer.toString(negativeTestCaseCount));
+        out.write(CARDS_CLOSE);
+        for (Map.Entry<String, List<String[]>> section : ReportSections.snapshot()) {
+            writeSection(out, section.getKey(), section.getValue());
+        }
+        for (Map.Entry<String, List<String[]>> section : ownSections.entrySet()) {
+            if (!section.getValue().isEmpty()) writeSection(out, section.getKey(), section.getValue());
+        }
+        out.write(FORMULA_OPEN);
+        escapeHtml(out, formulaText);
+        out.write(TABLE_OPEN);
+        for (String h : headers) {
+            out.write("<th>");
+            escapeHtml(out, h);
+            out.write("</th>");
+        }
+        // filter controls are built by the page script from the embedded dictionaries
+        out.write(FILTER_ROW_OPEN);
         for (int c = 0; c < cols; c++) {
-            uniques.add(new LinkedHashSet<>());
+            out.write("<th></th>");
         }
+
+        out.write(ROWS_OPEN);
+        int rowCount = 0;
         for (String[] row : tableData) {
+            out.write(rowCount == 0 ? "[" : ",\n[");
             for (int c = 0; c < cols; c++) {
                 String v = c < row.length && row[c] != null ? row[c] : "";
-                uniques.get(c).add(v);
+                if (c > 0) out.write(',');
+                out.write(Integer.toString(columns.get(c).add(v, rowCount)));
             }
+            out.write(']');
+            rowCount++;
         }
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        html.append("<!doctype html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Test Data Report</title>\n");
-        html.append("<style>\n");
-        html.append("body{font-family:Arial,Helvetica,sans-serif;margin:20px;}\n");
-        html.append(".card{display:inline-block;padding:16px;margin:8px;background:#f8f9fa;border:1px solid #ddd;border-radius:8px;width:200px;text-align:center;}\n");
-        html.append(".timestamp{ text-align:center;margin-bottom:12px;color:#555;}\n");
-        html.append("table.display{border-collapse:collapse;width:100%;margin-top:16px;}\n");
-        html.append("table.display th, table.display td{border:1px solid #ddd;padding:8px;vertical-align:top;}\n");
-        html.append("table.display th{background:#f2f2f2;text-align:left;position:relative;padding-right:8px;}\n");
-        html.append(".filter-select{width:100%;box-sizing:border-box;margin-top:6px;}\n");
-        html.append(".filter-actions{margin-top:6px;text-align:right;}\n");
-        html.append(".header-link small{font-size:0.85em;color:#007bff;}\n");
-        html.append(".yes-cell{color:green;font-weight:bold;}\n");
-        html.append(".no-cell{color:red;font-weight:bold;}\n");
-        html.append("</style>\n");
-        // Inline JS for filtering (vanilla) - no dependency on jQuery/DataTables
-        html.append("<script>\n");
-        html.append("function applyColumnFilters(){\n");
-        html.append("  var table = document.getElementById('dataTable'); if(!table) return; var tbody = table.tBodies[0]; var rows = Array.prototype.slice.call(tbody.rows);\n");
-        html.append("  var selects = document.querySelectorAll('.col-filter'); var filters = [];\n");
-        html.append("  selects.forEach(function(s){ var vals = Array.prototype.slice.call(s.selectedOptions).map(function(o){ return o.value; }); filters.push(vals); });\n");
-        html.append("  rows.forEach(function(r){ var show = true; for(var c=0;c<filters.length;c++){ var sel = filters[c]; if(sel.length===0) continue; var cell = r.cells[c]; var text = cell?cell.textContent.trim():''; if(sel.indexOf(text)===-1){ show=false; break; } } r.style.display = show? '':'none'; });\n");
-        html.append("}\n");
-        html.append("function clearFilter(col){ var sel = document.querySelector('.col-filter[data-col=\"'+col+'\"]'); if(!sel) return; Array.prototype.forEach.call(sel.options,function(o){ o.selected=false; }); applyColumnFilters(); }\n");
-        html.append("document.addEventListener('DOMContentLoaded', function(){ var selects = document.querySelectorAll('.col-filter'); selects.forEach(function(s){ s.addEventListener('change', applyColumnFilters); }); var clears=document.querySelectorAll('.clear-filter'); clears.forEach(function(b){ b.addEventListener('click', function(){ clearFilter(this.getAttribute('data-col')); }); }); });\n");
-        html.append("</script>\n");
-        html.append("</head>\n<body>\n");
-        html.append("<div class='timestamp'>Report generated on: ").append(timestamp).append("</div>\n");
-        html.append("<div style='text-align:center;'>\n<div class='card'><h3>Total Records</h3><p>").append(totalRecords).append("</p></div>\n");
-        html.append("<div class='card'><h3>Failed Test Cases</h3><p>").append(negativeTestCaseCount).append("</p></div>\n</div>\n");
-        html.append("<div style='text-align:center;'><h3>Expected Condition Formula</h3><p>").append(escapeHtml(formulaText)).append("</p></div>\n");
-        // Table with a second header row containing selects for filtering (server-populated)
-        html.append("<table id='dataTable' class='display'>\n<thead>\n<tr>");
-        for (String h : headers) {
-            html.append("<th>").append(escapeHtml(h)).append("</th>");
+
+        // 32-bit words per bitset, padded to whole longs
+        int words = ((rowCount + 63) / 64) * 2;
+        out.write(META_OPEN);
+        out.write(Integer.toString(words));
+        out.write(",\"dict\":[");
+        for (int c = 0; c < cols; c++) {
+            if (c > 0) out.write(',');
+            out.write('[');
+            boolean first = true;
+            for (String v : columns.get(c).values.keySet()) {
+                if (!first) out.write(',');
+                writeJsonString(out, v);
+                first = false;
+            }
+            out.write(']');
         }
-        html.append("</tr>\n<tr class='filter-row'>");
+        out.write("],\"index\":[");
         for (int c = 0; c < cols; c++) {
-            LinkedHashSet<String> set = uniques.get(c);
-            html.append("<th>");
-            html.append("<select class='col-filter filter-select' multiple size='5' data-col='"+c+"'>");
-            for (String v : set) {
-                html.append("<option value='").append(escapeHtml(v)).append("'>").append(escapeHtml(v.length() > 80 ? v.substring(0,77) + "..." : v)).append("</option>");
+            if (c > 0) out.write(',');
+            ColumnIndex column = columns.get(c);
+            if (column.bitsets == null) {
+                out.write("null");
+                continue;
+            }
+            out.write('[');
+            for (int id = 0; id < column.bitsets.size(); id++) {
+                if (id > 0) out.write(',');
+                out.write('"');
+                out.write(toBase64(column.bitsets.get(id), words));
+                out.write('"');
             }
-            html.append("</select>");
-            html.append("<div class='filter-actions'><button type='button' class='clear-filter' data-col='"+c+"'>Clear</button></div>");
-            html.append("</th>");
+            out.write(']');
         }
-        html.append("</tr>\n</thead>\n<tbody>\n");
-        for (String[] row : tableData) {
-            html.append("<tr>");
-            for (int c = 0; c < cols; c++) {
-                String cell = c < row.length ? row[c] : "";
-                String escaped = escapeHtml(cell);
-                if (cell != null && cell.trim().equalsIgnoreCase("YES")) {
-                    html.append("<td class='yes-cell'>").append(escaped).append("</td>");
-                } else if (cell != null && cell.trim().equalsIgnoreCase("NO")) {
-                    html.append("<td class='no-cell'>").append(escaped).append("</td>");
-                } else {
-                    html.append("<td>").append(escaped).append("</td>");
+        out.write(']');
+        out.write(DOCUMENT_CLOSE);
+    }
+
+    /* Small summary table registered through ReportSections; first row is the header. */
+    private static void writeSection(Writer out, String title, List<String[]> rows) throws IOException {
+        out.write(SECTION_OPEN);
+        escapeHtml(out, title);
+        out.write(SECTION_TABLE_OPEN);
+        for (int r = 0; r < rows.size(); r++) {
+            String cellTag = r == 0 ? "th" : "td";
+            out.write("<tr>");
+            for (String cell : rows.get(r)) {
+                out.write('<');
+                out.write(cellTag);
+                out.write('>');
+                escapeHtml(out, cell);
+                out.write("</");
+                out.write(cellTag);
+                out.write('>');
+            }
+            out.write("</tr>\n");
+        }
+        out.write(SECTION_CLOSE);
+    }
+
+    /* ========= PER-COLUMN DICTIONARY AND BITSET INDEX ========= */
+
+    private static class ColumnIndex {
+
+        final Map<String, Integer> values = new LinkedHashMap<>();
+        List<BitSet> bitsets = new ArrayList<>();
+
+        /** Returns the value's dictionary id and marks the row in its bitset. */
+        int add(String value, int row) {
+            Integer id = values.get(value);
+            if (id == null) {
+                id = values.size();
+                values.put(value, id);
+                if (bitsets != null) {
+                    if (values.size() > MAX_INDEXED_VALUES) {
+                        bitsets = null;   // high cardinality: searched, not indexed
+                    } else {
+                        bitsets.add(new BitSet());
+                    }
                 }
             }
-            html.append("</tr>\n");
+            if (bitsets != null) bitsets.get(id).set(row);
+            return id;
         }
-        html.append("</tbody>\n</table>\n</body>\n</html>");
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(filePath))) {
-            w.write(html.toString());
-        } catch (IOException e) {
-            throw new RuntimeException("HTML write failed", e);
+    }
+
+    /** Little-endian bytes of the bitset, padded to words 32-bit words, as base64. */
+    private static String toBase64(BitSet bits, int words) {
+        byte[] bytes = new byte[words * 4];
+        long[] longs = bits.toLongArray();
+        for (int i = 0; i < longs.length; i++) {
+            for (int b = 0; b < 8; b++) {
+                bytes[i * 8 + b] = (byte) (longs[i] >>> (8 * b));
+            }
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /* ========= SINGLE-PASS ESCAPERS ========= */
+
+    static void escapeHtml(Writer out, String s) throws IOException {
+        if (s != null) escapeHtml(out, s, s.length());
+    }
+
+    /**
+     * Escapes the first {@code length} chars of s straight into the writer:
+     * runs of safe characters are copied as one slice, so nothing is allocated.
+     */
+    static void escapeHtml(Writer out, String s, int length) throws IOException {
+        if (s == null) return;
+        int end = Math.min(length, s.length());
+        int start = 0;
+        for (int i = 0; i < end; i++) {
+            String entity;
+            switch (s.charAt(i)) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '"': entity = "&quot;"; break;
+                case '\'': entity = "&#39;"; break;
+                default: continue;
+            }
+            if (i > start) out.write(s, start, i - start);
+            out.write(entity);
+            start = i + 1;
         }
+        if (end > start) out.write(s, start, end - start);
     }
-    private static String escapeHtml(String s) {
-        if (s == null) return "";
-        return s.replace("&","&amp;").replace("<","&lt;").replace(">","&gt;").replace("\"","&quot;").replace("'","&#39;");
+
+    /**
+     * Writes s as a JSON string literal that is also safe inside a script
+     * element ('<', '>', '&' and the U+2028/2029 line separators are
+     * unicode-escaped).
+     */
+    static void writeJsonString(Writer out, String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch >= 0x20 && ch != '"' && ch != '\\' && ch != '<' && ch != '>' && ch != '&'
+                    && ch != '\u2028' && ch != '\u2029') {
+                continue;
+            }
+            if (i > start) out.write(s, start, i - start);
+            switch (ch) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    out.write("\\u");
+                    String hex = Integer.toHexString(ch);
+                    for (int p = hex.length(); p < 4; p++) out.write('0');
+                    out.write(hex);
+            }
+            start = i + 1;
+        }
+        if (s.length() > start) out.write(s, start, s.length() - start);
+        out.write('"');
     }
-}
\ No newline at end of file
+}
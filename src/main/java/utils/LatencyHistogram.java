@@ -0,0 +1,76 @@
+package utils;
+
+/**
+ * Fixed-size log-linear histogram of durations in microseconds, in the style
+ * of HdrHistogram: every power of two is split into 16 equal buckets, so any
+ * recorded value is reported within about 6% of its true value, whatever its
+ * magnitude, using a few KB per histogram.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+
+    private final long[] counts = new long[64 * HALF + 2 * HALF];
+    private long count;
+    private long totalMicros;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros;
+
+    public synchronized void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[indexOf(value)]++;
+        count++;
+        totalMicros += value;
+        minMicros = Math.min(minMicros, value);
+        maxMicros = Math.max(maxMicros, value);
+    }
+
+    /* Values below 32 get exact buckets; above that, the top 5 bits pick the bucket. */
+    private static int indexOf(long value) {
+        int magnitude = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        int sub = (int) (value >>> magnitude);
+        return magnitude * HALF + sub;
+    }
+
+    /* Largest value that falls into the bucket. */
+    private static long highestIn(int index) {
+        int magnitude = index < 2 * HALF ? 0 : index / HALF - 1;
+        long sub = index - (long) magnitude * HALF;
+        return ((sub + 1) << magnitude) - 1;
+    }
+
+    /** Value (µs) at or below which {@code percentile} percent of the recordings fall. */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTotalMicros() {
+        return totalMicros;
+    }
+
+    public synchronized long getMinMicros() {
+        return count == 0 ? 0 : minMicros;
+    }
+
+    public synchronized long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public synchronized long getMeanMicros() {
+        return count == 0 ? 0 : totalMicros / count;
+    }
+}
@@ -0,0 +1,154 @@
+package utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helpers for resolving a {@link By} inside the page with JavaScript, so a
+ * lookup costs one executeScript call and never blocks on the implicit wait.
+ */
+class Locators {
+
+    /** In-page function: find(using, value, root) returns an array of elements. */
+    static final String FIND_FUNCTION =
+            "function find(using, value, root){" +
+            " root = root || document;" +
+            " if (using === 'xpath') {" +
+            "  var r = document.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "  var a = []; for (var i = 0; i < r.snapshotLength; i++) a.push(r.snapshotItem(i)); return a;" +
+            " }" +
+            " return Array.prototype.slice.call(root.querySelectorAll(value));" +
+            "}\n";
+
+    private static final String COUNT_SCRIPT =
+            FIND_FUNCTION + "return find(arguments[0], arguments[1], arguments[2]).length;";
+
+    private static final String CLICK_SCRIPT =
+            FIND_FUNCTION +
+            "var el = find(arguments[0], arguments[1]).filter(function(e){ return e.isConnected; })[0];" +
+            "if (!el) return false; el.click(); return true;";
+
+    /*
+     * Returns [text, attr1, attr2, ...] per element with non-empty trimmed text.
+     * Attributes are read from the element or its closest ancestor that has
+     * them, so a name span inside a profile link still yields the href.
+     */
+    private static final String EXTRACT_SCRIPT =
+            FIND_FUNCTION +
+            "var attrs = arguments[3] || [], out = [];" +
+            "find(arguments[0], arguments[1], arguments[2]).forEach(function(el){" +
+            " if (!el.isConnected) return;" +
+            " var text = (el.innerText || el.textContent || '').trim();" +
+            " if (!text) return;" +
+            " var item = [text];" +
+            " attrs.forEach(function(a){" +
+            "  var holder = el.hasAttribute(a) ? el : el.closest('[' + a + ']');" +
+            "  var v = holder ? (a === 'href' && holder.href ? holder.href : holder.getAttribute(a)) : null;" +
+            "  item.push(v);" +
+            " });" +
+            " out.push(item);" +
+            "});" +
+            "return out;";
+
+    private Locators() {
+    }
+
+    /**
+     * Returns {using, value} for locators the page can resolve itself (xpath and
+     * css, which is what id/name/className/tagName translate to), otherwise null.
+     */
+    static String[] toScriptArgs(By locator) {
+        if (locator instanceof By.Remotable) {
+            By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+            String using = params.using();
+            if ("xpath".equals(using) || "css selector".equals(using)) {
+                return new String[]{using, String.valueOf(params.value())};
+            }
+        }
+        return null;
+    }
+
+    static int count(WebDriver driver, By locator) {
+        return count(driver, null, locator);
+    }
+
+    static int count(WebDriver driver, WebElement root, By locator) {
+        String[] args = toScriptArgs(locator);
+        if (args == null) {
+            return root == null
+                    ? driver.findElements(locator).size()
+                    : root.findElements(locator).size();
+        }
+        Object result = ((JavascriptExecutor) driver)
+                .executeScript(COUNT_SCRIPT, args[0], args[1], root);
+        return result instanceof Number ? ((Number) result).intValue() : 0;
+    }
+
+    /**
+     * Clicks the first connected match with a DOM click, without scrolling or
+     * waiting for it to be clickable. Returns false if nothing matched.
+     */
+    static boolean clickFirst(WebDriver driver, By locator) {
+        String[] args = toScriptArgs(locator);
+        if (args == null) {
+            List<WebElement> elements = driver.findElements(locator);
+            if (elements.isEmpty()) return false;
+            ((JavascriptExecutor) driver).executeScript("arguments[0].click();", elements.get(0));
+            return true;
+        }
+        Object clicked = ((JavascriptExecutor) driver).executeScript(CLICK_SCRIPT, args[0], args[1]);
+        return Boolean.TRUE.equals(clicked);
+    }
+
+    /**
+     * Extracts trimmed text (plus the requested attributes) of every match in a
+     * single executeScript call. Each entry is {text, attr1, attr2, ...}.
+     */
+    static List<String[]> extract(WebDriver driver, WebElement root, By locator, String... attributes) {
+        String[] args = toScriptArgs(locator);
+        if (args == null) {
+            return extractOneByOne(root == null ? driver.findElements(locator) : root.findElements(locator), attributes);
+        }
+        Object result = ((JavascriptExecutor) driver)
+                .executeScript(EXTRACT_SCRIPT, args[0], args[1], root, Arrays.asList(attributes));
+
+        List<String[]> items = new ArrayList<>();
+        if (result instanceof List) {
+            for (Object entry : (List<?>) result) {
+                List<?> values = (List<?>) entry;
+                String[] item = new String[values.size()];
+                for (int i = 0; i < item.length; i++) {
+                    item[i] = values.get(i) == null ? null : values.get(i).toString();
+                }
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /* Fallback for locators the page cannot resolve itself (linkText, ...). */
+    private static List<String[]> extractOneByOne(List<WebElement> elements, String... attributes) {
+        List<String[]> items = new ArrayList<>();
+        for (WebElement element : elements) {
+            try {
+                String text = element.getText().trim();
+                if (text.isEmpty()) continue;
+                String[] item = new String[attributes.length + 1];
+                item[0] = text;
+                for (int i = 0; i < attributes.length; i++) {
+                    item[i + 1] = element.getAttribute(attributes[i]);
+                }
+                items.add(item);
+            } catch (StaleElementReferenceException ignored) {
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,317 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a whole CSV file into {@link CsvColumns} by memory-mapping it and
+ * parsing fixed-size chunks in parallel on the common fork-join pool.
+ *
+ * <p>Chunks must start on a record boundary, and a newline inside a quoted
+ * value is not one. Whether a byte is inside a quoted value depends on the
+ * same rule the parser uses: a quote only opens a value at its start, so a
+ * quote in the middle of an unquoted value (5" tall) is plain text. A first
+ * parallel pass runs that state machine over each chunk from every possible
+ * starting state and keeps the end states. Chaining them from the start of
+ * the file gives the real state at every nominal chunk start, and each chunk
+ * then begins after the first newline that ends a record from there.</p>
+ *
+ * <p>Each chunk is copied out of its mapping in one bulk read and parsed as
+ * bytes, without decoding the whole chunk to a String first, and repeated short values share one String per chunk,
+ * which keeps a YES/NO matrix small.</p>
+ */
+class MappedCsvReader {
+
+    private static final long MIN_CHUNK = 64 * 1024;   // each chunk is its own mapping
+
+    private final Path path;
+    private final long chunkBytes;
+
+    MappedCsvReader(String filePath, long chunkBytes) {
+        this.path = Paths.get(filePath);
+        this.chunkBytes = Math.max(MIN_CHUNK, chunkBytes);
+    }
+
+    CsvColumns read() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+
+            long[] starts = recordBoundaries(channel, size, chunks);
+            List<List<String[]>> parsed = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) parsed.add(null);
+            IntStream.range(0, chunks).parallel().forEach(i ->
+                    parsed.set(i, parse(channel, starts[i], starts[i + 1])));
+
+            return assemble(parsed);
+        } catch (IOException e) {
+            throw new RuntimeException("CSV read failed: " + path, e);
+        }
+    }
+
+    /* ================= RECORD BOUNDARIES ================= */
+
+    /* Parser states between two bytes; a record ends on a line break outside QUOTED. */
+    private static final int FIELD_START = 0;     // at the start of a value
+    private static final int UNQUOTED = 1;        // in an unquoted value, or after a closing quote
+    private static final int QUOTED = 2;          // in a quoted value
+    private static final int QUOTE_IN_QUOTED = 3; // after a quote in a quoted value: "" or the closing one
+    private static final int STATES = 4;
+
+    /* NEXT[state][byte class]; classes: 0 other, 1 quote, 2 delimiter, 3 line break */
+    private static final int[][] NEXT = {
+            {UNQUOTED, QUOTED, FIELD_START, FIELD_START},
+            {UNQUOTED, UNQUOTED, FIELD_START, FIELD_START},
+            {QUOTED, QUOTE_IN_QUOTED, QUOTED, QUOTED},
+            {UNQUOTED, QUOTED, FIELD_START, FIELD_START},
+    };
+
+    private static int byteClass(byte b) {
+        switch (b) {
+            case '"': return 1;
+            case ',': return 2;
+            case '\n':
+            case '\r': return 3;
+            default: return 0;
+        }
+    }
+
+    /* Returns chunks + 1 offsets; chunk i is [starts[i], starts[i + 1]). */
+    private long[] recordBoundaries(FileChannel channel, long size, int chunks) {
+        // end state of every chunk for each state it could start in
+        int[][] endStates = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            long from = i * chunkBytes;
+            MappedByteBuffer buffer = map(channel, from, Math.min(size, from + chunkBytes) - from);
+            int[] states = {FIELD_START, UNQUOTED, QUOTED, QUOTE_IN_QUOTED};
+            while (buffer.hasRemaining()) {
+                int c = byteClass(buffer.get());
+                for (int s = 0; s < STATES; s++) states[s] = NEXT[states[s]][c];
+            }
+            endStates[i] = states;
+        });
+
+        int[] stateAtStart = new int[chunks];
+        int state = FIELD_START;
+        for (int i = 0; i < chunks; i++) {
+            stateAtStart[i] = state;
+            state = endStates[i][state];
+        }
+
+        long[] starts = new long[chunks + 1];
+        starts[chunks] = size;
+        IntStream.range(1, chunks).parallel().forEach(i ->
+                starts[i] = nextRecordStart(channel, i * chunkBytes, size, stateAtStart[i]));
+        for (int i = 1; i <= chunks; i++) {
+            starts[i] = Math.max(starts[i], starts[i - 1]);   // a huge quoted value can span chunks
+        }
+        return starts;
+    }
+
+    private long nextRecordStart(FileChannel channel, long from, long size, int state) {
+        long position = from;
+        while (position < size) {
+            MappedByteBuffer buffer = map(channel, position, Math.min(size - position, chunkBytes));
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                boolean endsRecord = b == '\n' && state != QUOTED;
+                state = NEXT[state][byteClass(b)];
+                if (endsRecord) return position + buffer.position();
+            }
+            position += buffer.limit();
+        }
+        return size;
+    }
+
+    /* ================= PARSING ================= */
+
+    /*
+     * Parses [from, to) straight from the mapped bytes, with the semantics of
+     * CSVFormat.DEFAULT plus trim: a quote only opens a value at its start,
+     * "" inside quotes is a quote, \n, \r\n or \r end a record and empty lines
+     * are skipped. Short values (YES, NO, "") are shared per chunk.
+     */
+    private static List<String[]> parse(FileChannel channel, long from, long to) {
+        List<String[]> records = new ArrayList<>();
+        if (to <= from) return records;
+        // one bulk copy out of the mapping; per-byte reads through the buffer are far slower
+        MappedByteBuffer mapped = map(channel, from, to - from);
+        byte[] bytes = new byte[mapped.limit()];
+        mapped.get(0, bytes);
+        ChunkParser parser = new ChunkParser(bytes);
+        List<String> fields = new ArrayList<>();
+        while (parser.hasMore()) {
+            if (parser.skipEmptyLine()) continue;
+            fields.clear();
+            while (true) {
+                fields.add(parser.field());
+                if (!parser.nextField()) break;
+            }
+            records.add(fields.toArray(new String[0]));
+        }
+        return records;
+    }
+
+    private static class ChunkParser {
+
+        private static final int SHORT_VALUE = 7;         // bytes; packed with the length into a long
+        private static final int SLOTS = 1024;            // open-addressed table of shared values
+        private static final int MAX_SHARED = SLOTS / 2;
+
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+        private byte[] scratch = new byte[256];
+        private final long[] sharedKeys = new long[SLOTS];
+        private final String[] sharedValues = new String[SLOTS];
+        private int shared;
+
+        ChunkParser(byte[] bytes) {
+            this.bytes = bytes;
+            this.end = bytes.length;
+        }
+
+        boolean hasMore() {
+            return pos < end;
+        }
+
+        boolean skipEmptyLine() {
+            byte b = bytes[pos];
+            if (b == '\n') {
+                pos++;
+                return true;
+            }
+            if (b == '\r') {
+                pos++;
+                if (pos < end && bytes[pos] == '\n') pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /* Reads one value, leaving pos on the delimiter, line break or end. */
+        String field() {
+            byte[] in = bytes;
+            int p = pos;
+            int n = 0;
+            if (p < end && in[p] == '"') {
+                p++;
+                int run = p;
+                while (p < end) {
+                    if (in[p] != '"') {
+                        p++;
+                        continue;
+                    }
+                    n = copy(in, run, p - run, n);
+                    if (p + 1 < end && in[p + 1] == '"') {
+                        n = copy(in, p, 1, n);
+                        p += 2;
+                        run = p;
+                    } else {
+                        p++;
+                        run = -1;
+                        break;
+                    }
+                }
+                if (run >= 0) n = copy(in, run, p - run, n);   // unterminated: take the rest
+            }
+            // unquoted value, or anything between a closing quote and the delimiter
+            int start = p;
+            while (p < end) {
+                byte b = in[p];
+                if (b == ',' || b == '\n' || b == '\r') break;
+                p++;
+            }
+            pos = p;
+            if (n == 0) return value(in, start, p);
+            n = copy(in, start, p - start, n);
+            return value(scratch, 0, n);
+        }
+
+        private int copy(byte[] in, int from, int length, int n) {
+            if (length <= 0) return n;
+            if (n + length > scratch.length) scratch = Arrays.copyOf(scratch, Math.max(n + length, scratch.length * 2));
+            System.arraycopy(in, from, scratch, n, length);
+            return n + length;
+        }
+
+        /* Consumes a delimiter (true) or a line break (false). */
+        boolean nextField() {
+            if (pos < end && bytes[pos] == ',') {
+                pos++;
+                return true;
+            }
+            if (pos < end && bytes[pos] == '\r') pos++;
+            if (pos < end && bytes[pos] == '\n') pos++;
+            return false;
+        }
+
+        /* Trimmed like String.trim(): bytes <= ' ' are single-byte in UTF-8. */
+        private String value(byte[] in, int from, int to) {
+            while (from < to && (in[from] & 0xFF) <= ' ') from++;
+            while (to > from && (in[to - 1] & 0xFF) <= ' ') to--;
+            int length = to - from;
+            if (length > SHORT_VALUE) return new String(in, from, length, StandardCharsets.UTF_8);
+
+            long key = length;
+            for (int i = from; i < to; i++) key = key << 8 | (in[i] & 0xFF);
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 54);   // top 10 bits
+            while (sharedValues[slot] != null) {
+                if (sharedKeys[slot] == key) return sharedValues[slot];
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+            String value = new String(in, from, length, StandardCharsets.UTF_8);
+            if (shared < MAX_SHARED) {
+                sharedKeys[slot] = key;
+                sharedValues[slot] = value;
+                shared++;
+            }
+            return value;
+        }
+    }
+
+    private static CsvColumns assemble(List<List<String[]>> parsed) {
+        List<String[]> first = parsed.get(0);
+        String[] header = first.isEmpty() ? new String[0] : first.get(0);
+        if (header.length > 0 && header[0].startsWith("\uFEFF")) header[0] = header[0].substring(1);
+
+        int[] offsets = new int[parsed.size() + 1];
+        for (int i = 0; i < parsed.size(); i++) {
+            int skip = i == 0 && !first.isEmpty() ? 1 : 0;
+            offsets[i + 1] = offsets[i] + parsed.get(i).size() - skip;
+        }
+        int rows = offsets[parsed.size()];
+
+        String[][] columns = new String[header.length][rows];
+        IntStream.range(0, parsed.size()).parallel().forEach(i -> {
+            List<String[]> records = parsed.get(i);
+            int skip = i == 0 && !records.isEmpty() ? 1 : 0;
+            for (int r = skip; r < records.size(); r++) {
+                String[] values = records.get(r);
+                int row = offsets[i] + r - skip;
+                for (int c = 0; c < header.length; c++) {
+                    columns[c][row] = c < values.length && values[c] != null ? values[c] : "";
+                }
+            }
+        });
+        return new CsvColumns(new CsvRow.Schema(List.of(header)), columns, rows);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(length, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Reads engager names from the JSON responses the page fetches while the
+ * reactions / comments / reposts list pages, instead of from the rendered
+ * DOM. Capture listens passively to the DevTools Network domain: requests go
+ * to the browser's network stack untouched, and only the bodies of XHR /
+ * Fetch responses whose URL matches are read back with
+ * Network.getResponseBody once they have finished loading. It only works on
+ * Chromium browsers; {@link #start} returns null otherwise and callers scrape
+ * the DOM as before.
+ *
+ * <p>A name is taken from any JSON object that has one of the configured name
+ * paths, e.g. {@code firstName+lastName} or {@code reactorLockup.title.text}.
+ * Objects with a {@code paging} block tell when the list is complete.</p>
+ *
+ * <p>The Network domain is shared with {@link RateGovernor}'s throttle
+ * listener on the same session, so {@link #close} only stops this capture;
+ * it never disables the domain.</p>
+ */
+public class NetworkCapture implements AutoCloseable {
+
+    private static final Json JSON = new Json();
+    private static final Set<String> RESOURCE_TYPES = Set.of("XHR", "Fetch");
+
+    /* Captures open per driver; DevTools listeners cannot be removed one by one, so each driver gets one. */
+    private static final Map<WebDriver, List<NetworkCapture>> ACTIVE = new WeakHashMap<>();
+
+    private final WebDriver driver;
+    private final Pattern urlPattern;
+    private final List<String> namePaths;
+    private final Set<String> names = new LinkedHashSet<>();
+    private final Set<String> pending = new HashSet<>();
+    private int responses;
+    private boolean complete;
+    private DevTools devTools;
+    private ExecutorService bodies;
+
+    private NetworkCapture(WebDriver driver, Pattern urlPattern, List<String> namePaths) {
+        this.driver = driver;
+        this.urlPattern = urlPattern;
+        this.namePaths = namePaths;
+    }
+
+    /**
+     * Starts capturing JSON responses whose URL matches the pattern. Returns
+     * null if the driver has no DevTools connection.
+     */
+    public static NetworkCapture start(WebDriver driver, Pattern urlPattern, List<String> namePaths) {
+        if (!(driver instanceof HasDevTools)) {
+            System.out.println("Network capture unavailable, falling back to the DOM: no DevTools on "
+                    + driver.getClass().getSimpleName());
+            return null;
+        }
+        NetworkCapture capture = new NetworkCapture(driver, urlPattern, namePaths);
+        try {
+            capture.devTools = listen(driver);
+        } catch (RuntimeException e) {
+            System.out.println("Network capture unavailable, falling back to the DOM: " + e.getMessage());
+            return null;
+        }
+        capture.bodies = Executors.newSingleThreadExecutor();
+        synchronized (ACTIVE) {
+            ACTIVE.get(driver).add(capture);
+        }
+        return capture;
+    }
+
+    /**
+     * Starts capture for an engagement type if extraction.mode is "network",
+     * using capture.&lt;type&gt;.url and capture.namePaths; otherwise returns null.
+     */
+    public static NetworkCapture fromConfig(WebDriver driver, String type) {
+        if (!"network".equalsIgnoreCase(ConfigReader.get("extraction.mode", "dom"))) return null;
+        String url = ConfigReader.get("capture." + type + ".url");
+        if (url == null || url.isBlank()) return null;
+
+        List<String> paths = new ArrayList<>();
+        for (String path : ConfigReader.get("capture.namePaths", "firstName+lastName").split(",")) {
+            if (!path.isBlank()) paths.add(path.trim());
+        }
+        return start(driver, Pattern.compile(url.trim()), paths);
+    }
+
+    /* ================= DEVTOOLS ================= */
+
+    /* Enables the Network domain and registers the driver's dispatching listeners once. */
+    private static DevTools listen(WebDriver driver) {
+        synchronized (ACTIVE) {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            if (ACTIVE.containsKey(driver)) return devTools;
+
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<>("Network.enable", Map.of()));
+            devTools.addListener(new Event<>("Network.responseReceived", input -> input.read(Json.MAP_TYPE)),
+                    event -> {
+                        for (NetworkCapture capture : active(driver)) capture.onResponse((Map<?, ?>) event);
+                    });
+            devTools.addListener(new Event<>("Network.loadingFinished", input -> input.read(Json.MAP_TYPE)),
+                    event -> {
+                        for (NetworkCapture capture : active(driver)) capture.onLoaded((Map<?, ?>) event);
+                    });
+            ACTIVE.put(driver, new ArrayList<>());
+            return devTools;
+        }
+    }
+
+    private static List<NetworkCapture> active(WebDriver driver) {
+        synchronized (ACTIVE) {
+            List<NetworkCapture> captures = ACTIVE.get(driver);
+            return captures == null ? List.of() : new ArrayList<>(captures);
+        }
+    }
+
+    /* Remembers matching XHR / Fetch JSON responses until their body has loaded. */
+    private synchronized void onResponse(Map<?, ?> event) {
+        if (!RESOURCE_TYPES.contains(String.valueOf(event.get("type")))) return;
+        Object response = event.get("response");
+        if (!(response instanceof Map)) return;
+        String url = String.valueOf(((Map<?, ?>) response).get("url"));
+        String mimeType = String.valueOf(((Map<?, ?>) response).get("mimeType"));
+        if (!urlPattern.matcher(url).find() || !mimeType.contains("json")) return;
+        pending.add(String.valueOf(event.get("requestId")));
+    }
+
+    /* Fetches the body off the DevTools thread, which has to stay free to deliver the reply. */
+    private synchronized void onLoaded(Map<?, ?> event) {
+        String requestId = String.valueOf(event.get("requestId"));
+        if (!pending.remove(requestId) || bodies == null) return;
+        bodies.execute(() -> {
+            try {
+                Map<String, Object> result = devTools.send(new Command<Map<String, Object>>(
+                        "Network.getResponseBody", Map.of("requestId", requestId), Json.MAP_TYPE));
+                String body = String.valueOf(result.get("body"));
+                if (Boolean.TRUE.equals(result.get("base64Encoded"))) {
+                    body = new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+                }
+                accept(body);
+            } catch (RuntimeException e) {
+                System.out.println("Could not read captured response " + requestId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /* Parses one matching payload. */
+    synchronized void accept(String body) {
+        Object json;
+        try {
+            json = JSON.toType(body, Object.class);
+        } catch (RuntimeException e) {
+            return;
+        }
+        responses++;
+        extractNames(json, namePaths, names);
+        if (isLastPage(json)) complete = true;
+        notifyAll();
+    }
+
+    /* ================= READING ================= */
+
+    public synchronized int getResponseCount() {
+        return responses;
+    }
+
+    /** Engager names in the order they arrived, without duplicates. */
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(names);
+    }
+
+    /** True once a payload's paging block says there is nothing after it. */
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /** Waits until at least {@code count} matching responses have arrived. */
+    public synchronized boolean awaitResponses(int count, Duration ceiling) {
+        long deadline = System.nanoTime() + ceiling.toNanos();
+        while (responses < count) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) return false;
+            try {
+                wait(Math.max(1, left / 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* ================= PAGING ================= */
+
+    /**
+     * Requests the following pages by clicking the load-more button in-page as
+     * soon as the previous page's response has arrived, without waiting for it
+     * to render. Stops when the payload says the list is complete, a page adds
+     * no names, the button is gone, or no response comes within the ceiling.
+     */
+    public void pageThrough(By loadMore, int maxPages, Duration perPage) {
+        StepTimings.time("capture.pageThrough", () -> {
+            for (int page = 0; page < maxPages && !isComplete(); page++) {
+                int before = getResponseCount();
+                int known = getNames().size();
+                RateGovernor.shared().acquire(driver);
+                long start = System.nanoTime();
+                if (!Locators.clickFirst(driver, loadMore)) break;
+                if (!awaitResponses(before + 1, perPage)) break;
+                RateGovernor.shared().observe("capture.page", System.nanoTime() - start);
+                if (getNames().size() == known) break;
+            }
+        });
+    }
+
+    /* ================= JSON ================= */
+
+    /**
+     * Adds the name of every object that has one of the paths. A path is
+     * dot-separated keys; "a+b" joins two string fields with a space. Objects
+     * that yield a name are not searched further.
+     */
+    static void extractNames(Object node, List<String> paths, Set<String> into) {
+        if (node instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) node;
+            for (String path : paths) {
+                String name = resolveName(map, path);
+                if (name != null) {
+                    into.add(name);
+                    return;
+                }
+            }
+            for (Object child : map.values()) extractNames(child, paths, into);
+        } else if (node instanceof List) {
+            for (Object child : (List<?>) node) extractNames(child, paths, into);
+        }
+    }
+
+    private static String resolveName(Map<?, ?> map, String path) {
+        StringBuilder name = new StringBuilder();
+        for (String part : path.split("\\+")) {
+            Object value = map;
+            for (String key : part.trim().split("\\.")) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(key) : null;
+            }
+            if (!(value instanceof String) || ((String) value).isBlank()) return null;
+            if (name.length() > 0) name.append(' ');
+            name.append(((String) value).trim());
+        }
+        return name.toString();
+    }
+
+    /* A paging block {start, count, total} whose window reaches the total. */
+    static boolean isLastPage(Object node) {
+        if (node instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) node;
+            Object paging = map.get("paging");
+            if (paging instanceof Map) {
+                Map<?, ?> p = (Map<?, ?>) paging;
+                if (p.get("start") instanceof Number && p.get("count") instanceof Number
+                        && p.get("total") instanceof Number) {
+                    long end = ((Number) p.get("start")).longValue() + ((Number) p.get("count")).longValue();
+                    return end >= ((Number) p.get("total")).longValue();
+                }
+            }
+            for (Object child : map.values()) {
+                if (isLastPage(child)) return true;
+            }
+        } else if (node instanceof List) {
+            for (Object child : (List<?>) node) {
+                if (isLastPage(child)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Stops this capture; the Network domain stays enabled for other listeners. */
+    @Override
+    public void close() {
+        synchronized (ACTIVE) {
+            List<NetworkCapture> captures = ACTIVE.get(driver);
+            if (captures != null) captures.remove(this);
+        }
+        synchronized (this) {
+            if (bodies == null) return;
+            bodies.shutdownNow();
+            bodies = null;
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bytes transferred and page-load time per post visit, read from the page's
+ * Navigation/Resource Timing entries, for the current browser profile.
+ *
+ * <p>At the end of a run the profile's averages are saved to
+ * page.stats.file, so a run with a lighter profile can report what it saves
+ * compared with the last run of the "default" profile.</p>
+ */
+public class PageLoadStats {
+
+    private static final String BASELINE_PROFILE = "default";
+
+    /* Bytes over the wire for the document and every resource, plus DOM-ready and load times. */
+    private static final String MEASURE_SCRIPT =
+            "var nav = performance.getEntriesByType('navigation')[0] || {};" +
+            "var bytes = nav.transferSize || 0;" +
+            "var res = performance.getEntriesByType('resource');" +
+            "for (var i = 0; i < res.length; i++) bytes += res[i].transferSize || 0;" +
+            "return [bytes, res.length, Math.round(nav.domContentLoadedEventEnd || 0), Math.round(nav.loadEventEnd || 0)];";
+
+    private static String profile = BASELINE_PROFILE;
+    private static int posts;
+    private static long totalBytes;
+    private static long totalRequests;
+    private static long totalDomReadyMillis;
+    private static long totalLoadMillis;
+    private static int loadedPosts;
+
+    static {
+        ReportSections.register("Page load per post", PageLoadStats::reportRows);
+    }
+
+    private PageLoadStats() {
+    }
+
+    public static synchronized void setProfile(String profileName) {
+        profile = profileName;
+    }
+
+    /** Measures the post currently open in the driver; call once per visit, after collecting. */
+    public static void record(WebDriver driver) {
+        List<?> values;
+        try {
+            values = (List<?>) ((JavascriptExecutor) driver).executeScript(MEASURE_SCRIPT);
+        } catch (RuntimeException e) {
+            System.out.println("Could not read page timing: " + e.getMessage());
+            return;
+        }
+        long bytes = ((Number) values.get(0)).longValue();
+        long requests = ((Number) values.get(1)).longValue();
+        long domReady = ((Number) values.get(2)).longValue();
+        long load = ((Number) values.get(3)).longValue();
+
+        synchronized (PageLoadStats.class) {
+            posts++;
+            totalBytes += bytes;
+            totalRequests += requests;
+            totalDomReadyMillis += domReady;
+            // with an eager page load the load event may not have fired yet
+            if (load > 0) {
+                totalLoadMillis += load;
+                loadedPosts++;
+            }
+        }
+    }
+
+    /* ================= AVERAGES ================= */
+
+    private static long avg(long total, int count) {
+        return count == 0 ? 0 : total / count;
+    }
+
+    private static synchronized Map<String, String> averages() {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("Profile", profile);
+        row.put("Posts", Integer.toString(posts));
+        row.put("KB", Long.toString(avg(totalBytes, posts) / 1024));
+        row.put("Requests", Long.toString(avg(totalRequests, posts)));
+        row.put("DOM ready (ms)", Long.toString(avg(totalDomReadyMillis, posts)));
+        row.put("Load (ms)", Long.toString(avg(totalLoadMillis, loadedPosts)));
+        return row;
+    }
+
+    private static Map<String, String> baseline() {
+        String file = ConfigReader.get("page.stats.file", "src/test/resources/testOutput/PageLoadStats.csv");
+        if (!new File(file).exists()) return null;
+        for (Map<String, String> row : CsvUtils.readCsv(file)) {
+            if (BASELINE_PROFILE.equals(row.get("Profile"))) return row;
+        }
+        return null;
+    }
+
+    /** Saves this run's averages, replacing the previous ones for the same profile. */
+    public static synchronized void save() {
+        if (posts == 0) return;
+        String file = ConfigReader.get("page.stats.file", "src/test/resources/testOutput/PageLoadStats.csv");
+
+        List<Map<String, String>> rows = new ArrayList<>();
+        if (new File(file).exists()) {
+            for (Map<String, String> row : CsvUtils.readCsv(file)) {
+                if (!profile.equals(row.get("Profile"))) rows.add(row);
+            }
+        }
+        rows.add(averages());
+        File parent = new File(file).getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        CsvUtils.writeCsv(file, rows);
+    }
+
+    private static synchronized List<String[]> reportRows() {
+        if (posts == 0) return Collections.emptyList();
+        Map<String, String> current = averages();
+        Map<String, String> base = BASELINE_PROFILE.equals(profile) ? null : baseline();
+
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Measure (avg per post)", "This run (" + profile + ")",
+                "Default profile", "Saved"});
+        for (String key : List.of("KB", "Requests", "DOM ready (ms)", "Load (ms)")) {
+            String now = current.get(key);
+            String before = base == null ? null : base.get(key);
+            rows.add(new String[]{key, now, before == null ? "-" : before, saved(before, now)});
+        }
+        return rows;
+    }
+
+    private static String saved(String before, String now) {
+        if (before == null) return "-";
+        try {
+            long b = Long.parseLong(before);
+            long n = Long.parseLong(now);
+            return b == 0 ? "-" : String.format(Locale.ROOT, "%d (%.0f%%)", b - n, (b - n) * 100.0 / b);
+        } catch (NumberFormatException e) {
+            return "-";
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package utils;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Why processing one post failed, and whether trying it again can help.
+ *
+ * <p>Browser-side errors (timeouts, stale or missing elements, intercepted
+ * clicks, navigation errors) are transient: the page was slow or changed
+ * under us. A dead browser session and plain Java errors (a bug, bad input)
+ * are permanent. A wrapped exception is classified by the first WebDriver
+ * exception in its cause chain.</p>
+ *
+ * <p>A post that still fails is reported, not dropped: {@link #toRow} gives
+ * the row to write in its place, with its roster columns left blank and the
+ * reason in the Status column.</p>
+ */
+public class PostFailure {
+
+    /** Column that is "OK" for a collected post and "FAILED ..." otherwise. */
+    public static final String STATUS = "Status";
+    public static final String OK = "OK";
+
+    public enum Kind { TRANSIENT, PERMANENT }
+
+    private final RuntimeException cause;
+    private final Kind kind;
+    private final int attempts;
+
+    public PostFailure(RuntimeException cause, int attempts) {
+        this.cause = cause;
+        this.kind = classify(cause);
+        this.attempts = attempts;
+    }
+
+    static Kind classify(Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause()) {
+            if (e instanceof NoSuchSessionException) return Kind.PERMANENT;
+            if (e instanceof WebDriverException) return Kind.TRANSIENT;
+        }
+        return Kind.PERMANENT;
+    }
+
+    public RuntimeException getCause() {
+        return cause;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isTransient() {
+        return kind == Kind.TRANSIENT;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /** One line: exception type and the first line of its message. */
+    public String getReason() {
+        Throwable root = cause;
+        for (Throwable e = cause; e != null; e = e.getCause()) {
+            if (e instanceof WebDriverException) {
+                root = e;
+                break;
+            }
+        }
+        String message = root.getMessage() == null ? "" : root.getMessage().split("\\R", 2)[0].trim();
+        if (message.length() > 200) message = message.substring(0, 200) + "...";
+        return root.getClass().getSimpleName() + (message.isEmpty() ? "" : ": " + message);
+    }
+
+    /** e.g. "FAILED (transient, 3 attempts): TimeoutException: ..." */
+    public String getStatus() {
+        return "FAILED (" + kind.name().toLowerCase() + ", " + attempts
+                + (attempts == 1 ? " attempt): " : " attempts): ") + getReason();
+    }
+
+    /**
+     * The row to report for the post instead of a result: the input columns
+     * with every roster column blank (unknown, not NO), no Total or Yes %, and
+     * the failure in Status.
+     */
+    public Map<String, String> toRow(Map<String, String> input) {
+        Map<String, String> row = new LinkedHashMap<>();
+        for (Map.Entry<String, String> column : input.entrySet()) {
+            boolean keep = column.getKey().equals("PostUrl");
+            row.put(column.getKey(), keep ? column.getValue() : "");
+        }
+        row.put("Yes %", "");
+        row.put("Match Notes", "");
+        row.put(STATUS, getStatus());
+        row.put(Timestamps.EXECUTED_AT, Timestamps.nowIst());
+        return row;
+    }
+
+    /** True if the row is a failure placeholder from {@link #toRow}. */
+    public static boolean isFailed(Map<String, String> row) {
+        String status = row.get(STATUS);
+        return status != null && status.startsWith("FAILED");
+    }
+
+    @Override
+    public String toString() {
+        return getStatus();
+    }
+}
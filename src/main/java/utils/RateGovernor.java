@@ -0,0 +1,376 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Paces every request-generating action (post navigations, "load more"
+ * clicks and scroll steps) across all browser sessions with one token bucket,
+ * and adjusts the rate AIMD-style: it creeps up while the site answers
+ * normally and halves when the site pushes back.
+ *
+ * <p>Push-back is recognised three ways:</p>
+ * <ul>
+ *     <li>an HTTP 429 (or LinkedIn's 999) on any response, seen through a
+ *     DevTools Network listener on Chromium browsers; Retry-After is honoured</li>
+ *     <li>an interstitial page after a navigation: its URL or title matches one
+ *     of governor.interstitial.patterns</li>
+ *     <li>responses slowing down: an action's smoothed latency exceeds
+ *     governor.slowdown.factor times the best it has been this run</li>
+ * </ul>
+ *
+ * <p>The first two pause every session for an exponentially growing backoff;
+ * a slowdown only lowers the rate. After a throttle the rate climbs back at
+ * full speed to 90% of the rate that was throttled and more cautiously above
+ * it, so the run settles just under the highest sustainable rate.</p>
+ */
+public class RateGovernor {
+
+    private static RateGovernor shared;
+
+    /* ================= CONFIGURATION ================= */
+
+    private final boolean enabled = ConfigReader.getBoolean("governor.enabled", true);
+    private double rate = Double.parseDouble(ConfigReader.get("governor.rate", "1.0"));
+    private double minRate = Double.parseDouble(ConfigReader.get("governor.minRate", "0.1"));
+    private double maxRate = Double.parseDouble(ConfigReader.get("governor.maxRate", "5.0"));
+    private double burst = ConfigReader.getInt("governor.burst", 3);
+    private double increase = Double.parseDouble(ConfigReader.get("governor.increase", "0.1"));
+    private int increaseEvery = ConfigReader.getInt("governor.increaseEvery", 20);
+    private double decrease = Double.parseDouble(ConfigReader.get("governor.decrease", "0.5"));
+    private Duration backoff = Duration.ofMillis(ConfigReader.getInt("governor.backoff.ms", 30000));
+    private Duration maxBackoff = Duration.ofMillis(ConfigReader.getInt("governor.backoff.max.ms", 300000));
+    private double slowdownFactor = Double.parseDouble(ConfigReader.get("governor.slowdown.factor", "3.0"));
+    private int navigationRetries = ConfigReader.getInt("governor.navigation.retries", 2);
+    private final List<String> interstitialPatterns = new ArrayList<>();
+
+    /* ================= STATE ================= */
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil;                   // nanoTime before which nobody may act
+    private long lastDecreaseAt;
+    private double throttledRate;               // rate at the last throttle, 0 = none yet
+    private double sustainedRate;               // highest rate held for a whole increase window
+    private int sinceChange;                    // actions since the rate last changed
+    private int consecutiveThrottles;
+
+    private long actions;
+    private long waitedNanos;
+    private long pausedNanos;
+    private final Map<String, Integer> signals = new TreeMap<>();
+    private final Map<String, double[]> latency = new TreeMap<>();   // action -> {smoothed ms, best smoothed ms, samples}
+    private final Set<WebDriver> watched = Collections.newSetFromMap(new WeakHashMap<>());
+
+    public RateGovernor() {
+        for (String pattern : ConfigReader.get("governor.interstitial.patterns",
+                "/checkpoint/,/authwall,too many requests,unusual activity").split(",")) {
+            if (!pattern.isBlank()) interstitialPatterns.add(pattern.trim().toLowerCase(Locale.ROOT));
+        }
+        tokens = burst;
+        ReportSections.register("Request pacing", this::reportRows);
+    }
+
+    /** The governor configured by the governor.* keys, shared by every session and test. */
+    public static synchronized RateGovernor shared() {
+        if (shared == null) {
+            shared = new RateGovernor();
+        }
+        return shared;
+    }
+
+    /** Starting rate in actions per second. */
+    public synchronized RateGovernor rate(double rate) {
+        this.rate = rate;
+        return this;
+    }
+
+    public synchronized RateGovernor maxRate(double maxRate) {
+        this.maxRate = maxRate;
+        return this;
+    }
+
+    /** First pause after a throttle; it doubles with each throttle in a row. */
+    public synchronized RateGovernor backoff(Duration backoff) {
+        this.backoff = backoff;
+        return this;
+    }
+
+    public synchronized RateGovernor increaseEvery(int actions) {
+        this.increaseEvery = actions;
+        return this;
+    }
+
+    /* ================= PACED ACTIONS ================= */
+
+    /**
+     * Navigates once a token is available. If the page turns out to be a
+     * throttling interstitial, backs off and tries again, up to
+     * governor.navigation.retries times.
+     */
+    public void navigate(WebDriver driver, String url) {
+        for (int attempt = 0; ; attempt++) {
+            pace(driver, "navigate", () -> driver.navigate().to(url));
+            String interstitial = interstitial(driver);
+            if (interstitial == null) return;
+            throttled("interstitial", interstitial, 0);
+            if (attempt >= navigationRetries) {
+                System.out.println("Still throttled after " + attempt + " retries: " + url);
+                return;
+            }
+        }
+    }
+
+    /** Runs a request-generating action (e.g. a "load more" click) once a token is available. */
+    public <T> T pace(WebDriver driver, String action, Supplier<T> step) {
+        watch(driver);
+        acquire();
+        long start = System.nanoTime();
+        T value = step.get();
+        observe(action, System.nanoTime() - start);
+        return value;
+    }
+
+    public void pace(WebDriver driver, String action, Runnable step) {
+        pace(driver, action, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    /**
+     * Takes a token for an action whose latency the caller reports separately
+     * with {@link #observe} (e.g. only when the action produced something).
+     */
+    public void acquire(WebDriver driver) {
+        watch(driver);
+        acquire();
+    }
+
+    /* ================= TOKEN BUCKET ================= */
+
+    private void acquire() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        while (true) {
+            long sleepNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - refilledAt) / 1e9 * rate);
+                refilledAt = now;
+                if (now < pausedUntil) {
+                    sleepNanos = pausedUntil - now;
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    actions++;
+                    waitedNanos += now - start;
+                    if (++sinceChange >= increaseEvery) increase();
+                    break;
+                } else {
+                    sleepNanos = (long) ((1 - tokens) / rate * 1e9);
+                }
+            }
+            sleep(sleepNanos);
+        }
+        StepTimings.record("governor.wait", System.nanoTime() - start);
+    }
+
+    /* Additive increase: full steps up to 90% of the throttled rate, quarter steps above it. */
+    private void increase() {
+        sustainedRate = Math.max(sustainedRate, rate);
+        consecutiveThrottles = 0;
+        double step = throttledRate > 0 && rate >= throttledRate * 0.9 ? increase / 4 : increase;
+        rate = Math.min(maxRate, rate + step);
+        sinceChange = 0;
+    }
+
+    /** Multiplicative decrease; a hard signal also pauses everyone. Returns false if ignored as a repeat. */
+    private synchronized boolean decrease(String signal, long pauseNanos) {
+        long now = System.nanoTime();
+        signals.merge(signal, 1, Integer::sum);
+        // one throttled page usually fails many requests at once: count them, react once
+        if (now < pausedUntil || now - lastDecreaseAt < 2_000_000_000L) return false;
+
+        throttledRate = rate;
+        rate = Math.max(minRate, rate * decrease);
+        tokens = Math.min(tokens, 0);
+        sinceChange = 0;
+        lastDecreaseAt = now;
+        if (pauseNanos > 0) {
+            pausedUntil = now + pauseNanos;
+            pausedNanos += pauseNanos;
+        }
+        return true;
+    }
+
+    /**
+     * Reports a throttle. Hard signals pause for Retry-After if the site gave
+     * one, else for the backoff, doubling per throttle in a row.
+     */
+    void throttled(String signal, String detail, long retryAfterMillis) {
+        long pause;
+        synchronized (this) {
+            long exponential = backoff.toMillis() << Math.min(consecutiveThrottles, 16);
+            pause = Math.max(retryAfterMillis, Math.min(maxBackoff.toMillis(), exponential));
+        }
+        if (decrease(signal, pause * 1_000_000L)) {
+            synchronized (this) {
+                consecutiveThrottles++;
+            }
+            System.out.printf(Locale.ROOT, "Throttled (%s: %s): rate now %.2f/s, pausing %d ms%n",
+                    signal, detail, getRate(), pause);
+        }
+    }
+
+    /* ================= SIGNALS ================= */
+
+    /**
+     * Feeds an action's latency into its smoothed average; once there are a
+     * few samples, a smoothed value far above the best seen counts as a
+     * slowdown.
+     */
+    public void observe(String action, long nanos) {
+        if (!enabled) return;
+        double millis = nanos / 1e6;
+        boolean slow;
+        double smoothed;
+        double best;
+        synchronized (this) {
+            double[] stats = latency.computeIfAbsent(action, k -> new double[]{millis, Double.MAX_VALUE, 0});
+            stats[0] = stats[0] * 0.8 + millis * 0.2;
+            stats[2]++;
+            if (stats[2] >= 5) stats[1] = Math.min(stats[1], stats[0]);
+            smoothed = stats[0];
+            best = stats[1];
+            slow = stats[2] >= 10 && smoothed > best * slowdownFactor;
+            if (slow) {
+                // start over, so a site that stays slower becomes the new normal
+                stats[1] = Double.MAX_VALUE;
+                stats[2] = 0;
+            }
+        }
+        if (slow && decrease("slowdown", 0)) {
+            System.out.printf(Locale.ROOT, "Slowing responses (%s: %.0f ms vs best %.0f ms): rate now %.2f/s%n",
+                    action, smoothed, best, getRate());
+        }
+    }
+
+    /* Returns the matching pattern if the current page looks like a throttling interstitial. */
+    private String interstitial(WebDriver driver) {
+        if (!enabled || interstitialPatterns.isEmpty()) return null;
+        String page;
+        try {
+            page = String.valueOf(((JavascriptExecutor) driver).executeScript(
+                    "return location.href + '\\n' + document.title;")).toLowerCase(Locale.ROOT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        for (String pattern : interstitialPatterns) {
+            if (page.contains(pattern)) return pattern;
+        }
+        return null;
+    }
+
+    /* Listens for 429/999 responses on Chromium browsers; other drivers rely on the other signals. */
+    private void watch(WebDriver driver) {
+        if (!enabled || !(driver instanceof HasDevTools)) return;
+        synchronized (watched) {
+            if (!watched.add(driver)) return;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<>("Network.enable", Map.of()));
+            devTools.addListener(new Event<>("Network.responseReceived", input -> input.read(Json.MAP_TYPE)),
+                    event -> onResponse((Map<?, ?>) event));
+        } catch (RuntimeException e) {
+            System.out.println("Throttle detection by status code unavailable: " + e.getMessage());
+        }
+    }
+
+    private void onResponse(Map<?, ?> event) {
+        Object response = event.get("response");
+        if (!(response instanceof Map)) return;
+        Object status = ((Map<?, ?>) response).get("status");
+        int code = status instanceof Number ? ((Number) status).intValue() : 0;
+        if (code != 429 && code != 999) return;
+        throttled("HTTP " + code, String.valueOf(((Map<?, ?>) response).get("url")),
+                retryAfterMillis(((Map<?, ?>) response).get("headers")));
+    }
+
+    /* Retry-After in seconds; the HTTP-date form is rare enough to fall back to the backoff. */
+    private static long retryAfterMillis(Object headers) {
+        if (!(headers instanceof Map)) return 0;
+        for (Map.Entry<?, ?> header : ((Map<?, ?>) headers).entrySet()) {
+            if (!"retry-after".equalsIgnoreCase(String.valueOf(header.getKey()))) continue;
+            try {
+                return Long.parseLong(String.valueOf(header.getValue()).trim()) * 1000;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(Math.max(1, nanos / 1_000_000), (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while pacing", e);
+        }
+    }
+
+    /* ================= STATE FOR TESTS AND THE REPORT ================= */
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /** Highest rate that went a whole increase window without a throttle. */
+    public synchronized double getSustainedRate() {
+        return sustainedRate;
+    }
+
+    /** Throttle signals seen, per signal (repeats within one episode included). */
+    public synchronized Map<String, Integer> getSignals() {
+        return new TreeMap<>(signals);
+    }
+
+    public synchronized long getActions() {
+        return actions;
+    }
+
+    private synchronized List<String[]> reportRows() {
+        if (actions == 0) return Collections.emptyList();
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Measure", "Value"});
+        rows.add(new String[]{"Paced actions", Long.toString(actions)});
+        rows.add(new String[]{"Rate now (actions/s)", String.format(Locale.ROOT, "%.2f", rate)});
+        rows.add(new String[]{"Highest sustained rate (actions/s)", String.format(Locale.ROOT, "%.2f", sustainedRate)});
+        rows.add(new String[]{"Last throttled at (actions/s)",
+                throttledRate == 0 ? "-" : String.format(Locale.ROOT, "%.2f", throttledRate)});
+        rows.add(new String[]{"Waiting to act (s)", Long.toString(waitedNanos / 1_000_000_000L)});
+        rows.add(new String[]{"Backoff pauses (s)", Long.toString(pausedNanos / 1_000_000_000L)});
+        for (Map.Entry<String, Integer> signal : signals.entrySet()) {
+            rows.add(new String[]{"Throttle signal: " + signal.getKey(), Integer.toString(signal.getValue())});
+        }
+        return rows;
+    }
+}
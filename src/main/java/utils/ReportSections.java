@@ -0,0 +1,44 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Extra summary tables that {@link HtmlReportGenerator} renders under the
+ * Total Records / Failed Test Cases cards. Components register a supplier once
+ * and it is asked for fresh rows every time a report is written.
+ */
+public class ReportSections {
+
+    private static final Map<String, Supplier<List<String[]>>> SECTIONS = new LinkedHashMap<>();
+
+    private ReportSections() {
+    }
+
+    /**
+     * Registers (or replaces) the section with this title. The supplier returns
+     * the header row first, then the data rows; an empty list hides the section.
+     */
+    public static synchronized void register(String title, Supplier<List<String[]>> rows) {
+        SECTIONS.put(title, rows);
+    }
+
+    public static synchronized void remove(String title) {
+        SECTIONS.remove(title);
+    }
+
+    /** Title and current rows of every section, in registration order. */
+    static synchronized List<Map.Entry<String, List<String[]>>> snapshot() {
+        List<Map.Entry<String, List<String[]>>> result = new ArrayList<>();
+        for (Map.Entry<String, Supplier<List<String[]>>> section : SECTIONS.entrySet()) {
+            List<String[]> rows = section.getValue().get();
+            if (rows != null && !rows.isEmpty()) {
+                result.add(Map.entry(section.getKey(), rows));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,264 @@
+package utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads an infinite-scroll / "show more" list until it stops growing. Each
+ * step clicks the load-more button if one is visible (otherwise scrolls the
+ * last item into view), then waits in the page, with a MutationObserver on
+ * the list container, until the new batch has arrived and settled. The list is
+ * complete when a step adds no items within the idle window.
+ *
+ * <p>With {@link #harvest(String)} each step also returns the items rendered
+ * since the last one, so the list is collected while scrolling (early nodes of
+ * a virtualized list are read before they are recycled) and each step only
+ * transfers what is new.</p>
+ *
+ * <pre>
+ * ScrollLoader.Result r = new ScrollLoader(driver, namesBy).loadMore(showMoreBy).harvest("href").load("likes");
+ * </pre>
+ */
+public class ScrollLoader {
+
+    /*
+     * One step, run as an async script. Resolves with
+     * [countBefore, countAfter, elapsedMs, action, timedOut, harvested], where
+     * harvested is [[key, text], ...] for rendered items not yet reported
+     * (only when arguments[6] names a key attribute). Progress is detected by a
+     * signature of count + last item text, so virtualized lists that recycle a
+     * fixed number of nodes still count as "arrived".
+     */
+    private static final String STEP_SCRIPT =
+            Locators.FIND_FUNCTION +
+            "var done = arguments[arguments.length - 1];" +
+            "var items = arguments[0], more = arguments[1], box = arguments[2];" +
+            "var idle = arguments[3], settle = arguments[4], ceiling = arguments[5], keyAttr = arguments[6];" +
+            "var harvested = [];" +
+            "function all(){ return find(items[0], items[1]); }" +
+            "function signature(){ var a = all(), l = a[a.length - 1];" +
+            "  return a.length + '|' + (l ? (l.textContent || '').trim() : ''); }" +
+            "function harvest(){" +
+            "  if (!keyAttr) return;" +
+            "  all().forEach(function(el){" +
+            "    if (!el.isConnected) return;" +
+            "    var text = (el.innerText || el.textContent || '').trim();" +
+            "    if (!text) return;" +
+            "    var holder = el.hasAttribute(keyAttr) ? el : el.closest('[' + keyAttr + ']');" +
+            "    var key = holder ? (keyAttr === 'href' && holder.href ? holder.href : holder.getAttribute(keyAttr)) : null;" +
+            "    key = key ? key.split('?')[0] : 'text:' + text;" +
+            "    var mark = key + '\\u0000' + text;" +
+            // a recycled node shows someone else: its mark no longer matches
+            "    if (el.__harvested === mark) return;" +
+            "    el.__harvested = mark;" +
+            "    harvested.push([key, text]);" +
+            "  });" +
+            "}" +
+            "var container = (box && find(box[0], box[1])[0]) || document.body;" +
+            "harvest();" +
+            "var before = all().length, sigBefore = signature(), start = Date.now(), last = start, action = 'scroll';" +
+            "var button = more ? find(more[0], more[1]).filter(function(b){" +
+            "  return b.isConnected && b.offsetParent !== null && !b.disabled; })[0] : null;" +
+            "var obs = new MutationObserver(function(){ last = Date.now(); });" +
+            "obs.observe(container, {childList: true, subtree: true, characterData: true});" +
+            "if (button) { button.click(); action = 'click'; }" +
+            "else {" +
+            "  var a = all();" +
+            "  if (a.length) a[a.length - 1].scrollIntoView({block: 'end'});" +
+            "  else window.scrollBy(0, window.innerHeight);" +
+            "}" +
+            "(function poll(){" +
+            "  var now = Date.now(), quiet = now - last, changed = signature() !== sigBefore;" +
+            "  var arrived = changed && quiet >= settle;" +
+            "  var stable = !changed && now - start >= idle && quiet >= idle;" +
+            "  if (arrived || stable || now - start >= ceiling) {" +
+            "    obs.disconnect(); harvest();" +
+            "    done([before, all().length, now - start, action, !arrived && !stable, harvested]); return;" +
+            "  }" +
+            "  setTimeout(poll, 50);" +
+            "})();";
+
+    /* ================= RESULT ================= */
+
+    public static class Result {
+
+        private final List<Integer> loadedPerStep = new ArrayList<>();
+        private final Map<String, Set<String>> harvested = new LinkedHashMap<>();
+        private int total;
+        private long elapsedMillis;
+        private String stoppedBecause = "max steps";
+
+        /**
+         * Items added by each step, in order (the last one is 0 when the list
+         * ended). When harvesting, this counts new distinct keys.
+         */
+        public List<Integer> getLoadedPerStep() {
+            return loadedPerStep;
+        }
+
+        /** Rendered items at the end, or distinct keys harvested when harvesting. */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Every text harvested, grouped by key in the order first seen (a person
+         * whose name node and lockup both matched contributes both texts).
+         */
+        public List<String> getNames() {
+            List<String> names = new ArrayList<>();
+            for (Set<String> texts : harvested.values()) names.addAll(texts);
+            return names;
+        }
+
+        /** Number of distinct keys (e.g. profiles) harvested. */
+        public int getHarvestedCount() {
+            return harvested.size();
+        }
+
+        /* Returns how many keys were new. */
+        private int addHarvested(List<?> items) {
+            int added = 0;
+            for (Object item : items) {
+                List<?> pair = (List<?>) item;
+                Set<String> texts = harvested.get((String) pair.get(0));
+                if (texts == null) {
+                    texts = new LinkedHashSet<>();
+                    harvested.put((String) pair.get(0), texts);
+                    added++;
+                }
+                texts.add((String) pair.get(1));
+            }
+            return added;
+        }
+
+        /** Time spent loading, from the first step until the list stopped growing. */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public String getStoppedBecause() {
+            return stoppedBecause;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder steps = new StringBuilder();
+            for (int loaded : loadedPerStep) steps.append(steps.length() == 0 ? "+" : " +").append(loaded);
+            return total + " items in " + loadedPerStep.size() + " steps (" + steps + ") in " + elapsedMillis
+                    + " ms, stopped: " + stoppedBecause;
+        }
+    }
+
+    private final WebDriver driver;
+    private final By items;
+    private By loadMore;
+    private By container;
+    private String harvestKey;
+    private Duration idle = Duration.ofMillis(ConfigReader.getInt("scroll.idle.ms", 1200));
+    private Duration settle = Duration.ofMillis(ConfigReader.getInt("scroll.settle.ms", 250));
+    private Duration stepCeiling = Duration.ofMillis(ConfigReader.getInt("scroll.step.ceiling.ms", 6000));
+    private int maxSteps = ConfigReader.getInt("scroll.maxSteps", 200);
+
+    /** @param items locator of one list entry (e.g. a name), counted to see the list grow */
+    public ScrollLoader(WebDriver driver, By items) {
+        this.driver = driver;
+        this.items = items;
+    }
+
+    /** Button that loads the next batch; clicked whenever it is visible. */
+    public ScrollLoader loadMore(By loadMore) {
+        this.loadMore = loadMore;
+        return this;
+    }
+
+    /** Element whose subtree is observed; defaults to the document body. */
+    public ScrollLoader container(By container) {
+        this.container = container;
+        return this;
+    }
+
+    /** How long the count must stay unchanged (with no DOM changes) to call the list complete. */
+    public ScrollLoader idle(Duration idle) {
+        this.idle = idle;
+        return this;
+    }
+
+    /**
+     * Collects the items as they render, keyed by this attribute (read from the
+     * item or its closest ancestor; "href" uses the absolute link without the
+     * query). Needed for virtualized lists, which drop early nodes.
+     */
+    public ScrollLoader harvest(String keyAttribute) {
+        this.harvestKey = keyAttribute;
+        return this;
+    }
+
+    public ScrollLoader maxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    /* ================= LOAD ================= */
+
+    /** Loads until the list is stable; {@code name} labels the log line and step timings. */
+    public Result load(String name) {
+        String[] itemArgs = scriptArgs(items);
+        String[] moreArgs = loadMore == null ? null : scriptArgs(loadMore);
+        String[] boxArgs = container == null ? null : scriptArgs(container);
+
+        Result result = new Result();
+        long loadStart = System.nanoTime();
+        for (int step = 0; step < maxSteps; step++) {
+            RateGovernor.shared().acquire(driver);
+            long start = System.nanoTime();
+            List<?> outcome = (List<?>) ((JavascriptExecutor) driver).executeAsyncScript(STEP_SCRIPT,
+                    List.of(itemArgs[0], itemArgs[1]),
+                    moreArgs == null ? null : List.of(moreArgs[0], moreArgs[1]),
+                    boxArgs == null ? null : List.of(boxArgs[0], boxArgs[1]),
+                    idle.toMillis(), settle.toMillis(), stepCeiling.toMillis(), harvestKey);
+            StepTimings.record("scroll." + name + ".step", System.nanoTime() - start);
+
+            int before = ((Number) outcome.get(0)).intValue();
+            int after = ((Number) outcome.get(1)).intValue();
+            boolean timedOut = Boolean.TRUE.equals(outcome.get(4));
+            int loaded;
+            if (harvestKey != null) {
+                loaded = result.addHarvested((List<?>) outcome.get(5));
+                result.total = result.harvested.size();
+            } else {
+                loaded = after - before;
+                result.total = after;
+            }
+            result.loadedPerStep.add(loaded);
+            if (loaded > 0 && !timedOut) {
+                RateGovernor.shared().observe("scroll", System.nanoTime() - start);
+            }
+
+            if (loaded == 0) {
+                result.stoppedBecause = timedOut ? "no new items before the step ceiling" : "count stable";
+                break;
+            }
+        }
+        result.elapsedMillis = (System.nanoTime() - loadStart) / 1_000_000;
+        System.out.println(name + " loaded " + result);
+        return result;
+    }
+
+    private static String[] scriptArgs(By locator) {
+        String[] args = Locators.toScriptArgs(locator);
+        if (args == null) {
+            throw new IllegalArgumentException("ScrollLoader needs an xpath or css locator: " + locator);
+        }
+        return args;
+    }
+}
@@ -0,0 +1,243 @@
+package utils;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the logged-in browser state (cookies and localStorage) in an
+ * AES-GCM encrypted file, so new sessions can restore it instead of going
+ * through the login form. One stored login serves every session of the
+ * pool; only when it is missing or expired does one session log in with
+ * the form (the others wait for it and then restore its state).
+ *
+ * <p>The key is derived from the SESSION_STATE_KEY environment variable, or
+ * the session.key config value, or failing both the account password.</p>
+ */
+public class SessionStore {
+
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    /* Asks the server whether the cookies are still accepted, without loading the feed. */
+    private static final String VALIDATE_SCRIPT =
+            "var done = arguments[arguments.length - 1];" +
+            "fetch('/feed/', {method: 'HEAD', credentials: 'include', redirect: 'manual'})" +
+            " .then(function(r){ done(r.type !== 'opaqueredirect' && r.status === 200); })" +
+            " .catch(function(){ done(false); });";
+
+    private static final Json JSON = new Json();
+
+    private final Path path;
+    private final String origin;
+    private final Duration loginTimeout;
+    private final SecretKeySpec key;
+
+    public SessionStore(String filePath, String appUrl, Duration loginTimeout, String secret) {
+        this.path = Paths.get(filePath);
+        URI uri = URI.create(appUrl);
+        this.origin = uri.getScheme() + "://" + uri.getHost();
+        this.loginTimeout = loginTimeout;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            this.key = new SecretKeySpec(digest, "AES");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** The store configured by session.state.file and session.login.timeout.seconds. */
+    public static SessionStore fromConfig() {
+        String secret = System.getenv("SESSION_STATE_KEY");
+        if (secret == null || secret.isEmpty()) secret = ConfigReader.get("session.key");
+        if (secret == null || secret.isEmpty()) secret = PasswordDecryptor.decrypt(ConfigReader.get("password"));
+
+        return new SessionStore(
+                ConfigReader.get("session.state.file", "src/test/resources/testOutput/session/session.state"),
+                ConfigReader.get("app.url"),
+                Duration.ofSeconds(ConfigReader.getInt("session.login.timeout.seconds", 60)),
+                secret
+        );
+    }
+
+    /* ================= LOGIN ================= */
+
+    /**
+     * Restores the stored state into the driver; if that is missing or no
+     * longer accepted, runs the form login once (across all threads) and
+     * stores the new state.
+     */
+    public void login(WebDriver driver, Runnable formLogin) {
+        if (restore(driver)) return;
+
+        synchronized (this) {
+            // another session may have logged in while this one waited
+            if (restore(driver)) return;
+
+            System.out.println("No valid stored session, logging in with the form");
+            formLogin.run();
+            if (awaitLoggedIn(driver)) {
+                save(driver);
+            } else {
+                System.out.println("Login did not reach a signed-in page within " + loginTimeout.toSeconds()
+                        + "s; session state not stored");
+            }
+        }
+    }
+
+    private boolean awaitLoggedIn(WebDriver driver) {
+        return new WaitEngine(driver).until("session.login", loginTimeout, d -> {
+            String url = d.getCurrentUrl();
+            return url.startsWith(origin)
+                    && !url.contains("/login") && !url.contains("/uas/") && !url.contains("/checkpoint");
+        });
+    }
+
+    /* ================= RESTORE ================= */
+
+    /** Loads the stored cookies and localStorage into the driver and checks they still work. */
+    public boolean restore(WebDriver driver) {
+        Map<String, Object> state = read();
+        if (state == null) return false;
+
+        long start = System.nanoTime();
+        // cookies and localStorage can only be set on a page of the same origin
+        driver.get(origin + "/robots.txt");
+        driver.manage().deleteAllCookies();
+        for (Object item : (List<?>) state.get("cookies")) {
+            try {
+                driver.manage().addCookie(toCookie((Map<?, ?>) item));
+            } catch (RuntimeException e) {
+                // a cookie for another subdomain; the rest are enough
+            }
+        }
+        Object storage = state.get("localStorage");
+        if (storage instanceof Map && !((Map<?, ?>) storage).isEmpty()) {
+            ((JavascriptExecutor) driver).executeScript(
+                    "var s = arguments[0]; for (var k in s) localStorage.setItem(k, s[k]);", storage);
+        }
+
+        boolean valid;
+        try {
+            valid = Boolean.TRUE.equals(((JavascriptExecutor) driver).executeAsyncScript(VALIDATE_SCRIPT));
+        } catch (RuntimeException e) {
+            valid = false;
+        }
+        StepTimings.record("session.restore", System.nanoTime() - start);
+        System.out.println(valid ? "Restored stored session" : "Stored session has expired");
+        return valid;
+    }
+
+    private static Cookie toCookie(Map<?, ?> c) {
+        Cookie.Builder builder = new Cookie.Builder((String) c.get("name"), (String) c.get("value"))
+                .path((String) c.get("path"))
+                .isSecure(Boolean.TRUE.equals(c.get("secure")))
+                .isHttpOnly(Boolean.TRUE.equals(c.get("httpOnly")));
+        if (c.get("domain") != null) builder.domain((String) c.get("domain"));
+        if (c.get("expiry") != null) builder.expiresOn(new Date(((Number) c.get("expiry")).longValue()));
+        if (c.get("sameSite") != null) builder.sameSite((String) c.get("sameSite"));
+        return builder.build();
+    }
+
+    /* ================= SAVE ================= */
+
+    /** Stores the driver's cookies and localStorage for the app's origin. */
+    public synchronized void save(WebDriver driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            Map<String, Object> c = new LinkedHashMap<>();
+            c.put("name", cookie.getName());
+            c.put("value", cookie.getValue());
+            c.put("domain", cookie.getDomain());
+            c.put("path", cookie.getPath());
+            c.put("secure", cookie.isSecure());
+            c.put("httpOnly", cookie.isHttpOnly());
+            if (cookie.getExpiry() != null) c.put("expiry", cookie.getExpiry().getTime());
+            if (cookie.getSameSite() != null) c.put("sameSite", cookie.getSameSite());
+            cookies.add(c);
+        }
+        Object storage = ((JavascriptExecutor) driver).executeScript(
+                "var s = {}; for (var i = 0; i < localStorage.length; i++) {" +
+                " var k = localStorage.key(i); s[k] = localStorage.getItem(k); } return s;");
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("savedAt", System.currentTimeMillis());
+        state.put("cookies", cookies);
+        state.put("localStorage", storage);
+        write(JSON.toJson(state));
+        System.out.println("Stored session state (" + cookies.size() + " cookies) in " + path);
+    }
+
+    /* ================= ENCRYPTED FILE ================= */
+
+    private Map<String, Object> read() {
+        if (!Files.exists(path)) return null;
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+            byte[] iv = new byte[IV_BYTES];
+            data.get(iv);
+            byte[] sealed = new byte[data.remaining()];
+            data.get(sealed);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            String json = new String(cipher.doFinal(sealed), StandardCharsets.UTF_8);
+            return JSON.toType(json, Json.MAP_TYPE);
+        } catch (Exception e) {
+            // wrong key, truncated or tampered file: behave as if there were none
+            System.out.println("Ignoring unreadable session state " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(String json) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(json.getBytes(StandardCharsets.UTF_8));
+
+            File parent = path.toFile().getParentFile();
+            if (parent != null && !parent.exists()) parent.mkdirs();
+            Path tmp = Paths.get(path + ".tmp");
+            Files.write(tmp, ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Session state write failed", e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Removes the stored state, forcing the next run to use the login form. */
+    public synchronized void clear() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Session state delete failed", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Run-wide latency histograms per named step (navigation, clicks, scrolling,
+ * extraction, waits ...). Wrap a step with
+ * {@code StepTimings.time("likes.open", () -> ...)}, or pass a duration
+ * measured elsewhere to {@link #record}.
+ *
+ * <p>The table is shown as "Run performance" in every HTML report and can be
+ * exported as JSON or CSV with {@link #export(String)}.</p>
+ */
+public class StepTimings {
+
+    private static final Map<String, LatencyHistogram> STEPS = new ConcurrentHashMap<>();
+
+    private static final String[] COLUMNS = {"step", "count", "total_ms", "mean_ms", "p50_ms", "p95_ms", "p99_ms", "max_ms"};
+
+    static {
+        ReportSections.register("Run performance", StepTimings::reportRows);
+    }
+
+    private StepTimings() {
+    }
+
+    /* ================= RECORDING ================= */
+
+    /** Runs the step and records how long it took, also when it throws. */
+    public static <T> T time(String name, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    public static void time(String name, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } finally {
+            record(name, System.nanoTime() - start);
+        }
+    }
+
+    public static void record(String name, long nanos) {
+        STEPS.computeIfAbsent(name, k -> new LatencyHistogram()).record(nanos / 1_000);
+    }
+
+    public static void reset() {
+        STEPS.clear();
+    }
+
+    /* ================= EXPORT ================= */
+
+    /** Rows of {@link #COLUMNS} values, sorted by step name. */
+    private static List<String[]> rows() {
+        List<String[]> rows = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(STEPS).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            rows.add(new String[]{
+                    entry.getKey(),
+                    Long.toString(h.getCount()),
+                    millis(h.getTotalMicros()),
+                    millis(h.getMeanMicros()),
+                    millis(h.percentile(50)),
+                    millis(h.percentile(95)),
+                    millis(h.percentile(99)),
+                    millis(h.getMaxMicros())
+            });
+        }
+        return rows;
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+    }
+
+    private static List<String[]> reportRows() {
+        List<String[]> rows = rows();
+        if (rows.isEmpty()) return Collections.emptyList();
+        rows.add(0, new String[]{"Step", "Count", "Total (ms)", "Mean (ms)", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)"});
+        return rows;
+    }
+
+    /** Writes {@code <basePath>.json} and {@code <basePath>.csv}. */
+    public static void export(String basePath) {
+        List<String[]> rows = rows();
+        if (rows.isEmpty()) return;
+
+        File parent = new File(basePath).getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+
+        try {
+            Files.writeString(Paths.get(basePath + ".json"), toJson(rows), StandardCharsets.UTF_8);
+
+            List<Map<String, String>> csv = new ArrayList<>();
+            for (String[] row : rows) {
+                Map<String, String> line = new LinkedHashMap<>();
+                for (int i = 0; i < COLUMNS.length; i++) line.put(COLUMNS[i], row[i]);
+                csv.add(line);
+            }
+            CsvUtils.writeCsv(basePath + ".csv", csv);
+        } catch (IOException e) {
+            throw new RuntimeException("Timing export failed: " + basePath, e);
+        }
+        System.out.println("Step timings written to " + basePath + ".json/.csv");
+    }
+
+    private static String toJson(List<String[]> rows) throws IOException {
+        Writer out = new StringWriter();
+        out.write("{\"unit\":\"ms\",\"steps\":[");
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            if (r > 0) out.write(',');
+            out.write("{\"step\":");
+            HtmlReportGenerator.writeJsonString(out, row[0]);
+            for (int i = 1; i < COLUMNS.length; i++) {
+                out.write(",\"" + COLUMNS[i] + "\":" + row[i]);
+            }
+            out.write('}');
+        }
+        out.write("]}\n");
+        return out.toString();
+    }
+}
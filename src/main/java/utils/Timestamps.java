@@ -0,0 +1,25 @@
+package utils;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The "Executed At (IST)" column every result row ends with, for collected
+ * and failed posts alike.
+ */
+public class Timestamps {
+
+    public static final String EXECUTED_AT = "Executed At (IST)";
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    private Timestamps() {
+    }
+
+    /** The current time in IST, e.g. "17-10-2026 11:00:00". */
+    public static String nowIst() {
+        return ZonedDateTime.now(IST).format(FORMAT);
+    }
+}
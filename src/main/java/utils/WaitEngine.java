@@ -0,0 +1,230 @@
+package utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.FluentWait;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Condition-driven waits that return as soon as the page is ready instead of
+ * sleeping for a fixed time. Every wait is named; the time it actually took is
+ * recorded against its ceiling so {@link #printSummary()} can show where the
+ * time goes, and feeds {@link AdaptiveTimeouts}, which tightens each ceiling
+ * to what the wait has needed so far.
+ *
+ * <p>Apart from {@link #require}, waits never throw on timeout: they return
+ * {@code false} once the ceiling is reached, which is the same outcome the old fixed sleeps had.</p>
+ */
+public class WaitEngine {
+
+    private static final Duration POLL = Duration.ofMillis(100);
+
+    private static final Map<String, WaitStats> STATS = new ConcurrentHashMap<>();
+
+    /* Records the time of the last DOM mutation in window.__lastMutation. */
+    private static final String DOM_OBSERVER_SCRIPT =
+            "if (!window.__waitObserver) {" +
+            " window.__lastMutation = Date.now();" +
+            " window.__waitObserver = new MutationObserver(function(){ window.__lastMutation = Date.now(); });" +
+            " window.__waitObserver.observe(document, {childList:true, subtree:true, characterData:true});" +
+            "}" +
+            "return [Date.now(), window.__lastMutation];";
+
+    /* Records the time the number of finished resource requests last changed. */
+    private static final String NETWORK_SCRIPT =
+            "if (window.__netCount === undefined) {" +
+            " performance.setResourceTimingBufferSize(100000);" +
+            " window.__netCount = -1;" +
+            "}" +
+            "var n = performance.getEntriesByType('resource').length;" +
+            "if (n !== window.__netCount) { window.__netCount = n; window.__netChanged = Date.now(); }" +
+            "return [Date.now(), window.__netChanged, document.readyState === 'complete'];";
+
+    private final WebDriver driver;
+
+    public WaitEngine(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /* ================= GENERIC CONDITION ================= */
+
+    /**
+     * Polls the condition until it returns true or the ceiling is reached.
+     * WebDriver errors raised by the condition (stale elements, scripts running
+     * during navigation) are treated as "not ready yet". The ceiling is an
+     * upper bound: {@link AdaptiveTimeouts} shortens it once the wait has a
+     * track record.
+     */
+    public boolean until(String name, Duration ceiling, Function<WebDriver, Boolean> condition) {
+        return poll(name, ceiling, condition) != null;
+    }
+
+    /**
+     * Like {@link #until} for conditions that return a value (e.g. Selenium's
+     * ExpectedConditions), but a timeout is an error: returns the value or
+     * throws {@link org.openqa.selenium.TimeoutException}.
+     */
+    public <T> T require(String name, Duration ceiling, Function<WebDriver, T> condition) {
+        T value = poll(name, ceiling, condition);
+        if (value == null) {
+            throw new org.openqa.selenium.TimeoutException("Wait '" + name + "' not met within its ceiling");
+        }
+        return value;
+    }
+
+    /**
+     * Waits for the first element matching the locator and returns it; throws
+     * {@link org.openqa.selenium.TimeoutException} if none appears in time.
+     * Use instead of a bare findElement now that there is no implicit wait.
+     */
+    public WebElement require(String name, By locator, Duration ceiling) {
+        return require(name, ceiling, d -> {
+            List<WebElement> found = d.findElements(locator);
+            return found.isEmpty() ? null : found.get(0);
+        });
+    }
+
+    /* The condition's value, or null once the (adaptive) ceiling is reached. */
+    private <T> T poll(String name, Duration ceiling, Function<WebDriver, T> condition) {
+        Duration effective = AdaptiveTimeouts.ceiling(name, ceiling);
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = new FluentWait<>(driver)
+                    .withTimeout(effective)
+                    .pollingEvery(POLL)
+                    .ignoring(WebDriverException.class)
+                    .until(condition);
+        } catch (org.openqa.selenium.TimeoutException e) {
+            value = null;
+        }
+        record(name, Duration.ofNanos(System.nanoTime() - start), effective, value != null);
+        return value;
+    }
+
+    /* ================= READINESS SIGNALS ================= */
+
+    /** Waits until document.readyState is 'complete'. */
+    public boolean untilPageLoaded(String name, Duration ceiling) {
+        return until(name, ceiling, d -> "complete".equals(
+                ((JavascriptExecutor) d).executeScript("return document.readyState;")));
+    }
+
+    /** Waits until no DOM mutation has happened for the quiet period. */
+    public boolean untilDomQuiet(String name, Duration quiet, Duration ceiling) {
+        return until(name, ceiling, d -> {
+            long[] times = domTimes(d);
+            return times[0] - times[1] >= quiet.toMillis();
+        });
+    }
+
+    /**
+     * Waits until the DOM has changed at least once since this call and has
+     * then been quiet for the quiet period. Use after an action that is
+     * expected to update the page (a click, a scroll that loads more).
+     */
+    public boolean untilDomSettled(String name, Duration quiet, Duration ceiling) {
+        long before;
+        try {
+            before = domTimes(driver)[0];
+        } catch (WebDriverException e) {
+            before = 0;   // page is navigating; any mutation counts
+        }
+        long changedAfter = before;
+        return until(name, ceiling, d -> {
+            long[] times = domTimes(d);
+            return times[1] > changedAfter && times[0] - times[1] >= quiet.toMillis();
+        });
+    }
+
+    /** Waits until the number of elements matching the locator exceeds previousCount. */
+    public boolean untilCountGrows(String name, By locator, int previousCount, Duration ceiling) {
+        return until(name, ceiling, d -> Locators.count(d, locator) > previousCount);
+    }
+
+    /** Waits until at least one element matches the locator. */
+    public boolean untilPresent(String name, By locator, Duration ceiling) {
+        return untilCountGrows(name, locator, 0, ceiling);
+    }
+
+    /** Waits until nothing matches the locator any more (e.g. a spinner). */
+    public boolean untilGone(String name, By locator, Duration ceiling) {
+        return until(name, ceiling, d -> Locators.count(d, locator) == 0);
+    }
+
+    /**
+     * Waits until the page has finished loading and no new resource request has
+     * completed for the quiet period.
+     */
+    public boolean untilNetworkIdle(String name, Duration quiet, Duration ceiling) {
+        return until(name, ceiling, d -> {
+            Object result = ((JavascriptExecutor) d).executeScript(NETWORK_SCRIPT);
+            List<?> values = (List<?>) result;
+            long now = ((Number) values.get(0)).longValue();
+            long changed = ((Number) values.get(1)).longValue();
+            return Boolean.TRUE.equals(values.get(2)) && now - changed >= quiet.toMillis();
+        });
+    }
+
+    private static long[] domTimes(WebDriver d) {
+        List<?> values = (List<?>)
+                ((JavascriptExecutor) d).executeScript(DOM_OBSERVER_SCRIPT);
+        return new long[]{
+                ((Number) values.get(0)).longValue(),
+                ((Number) values.get(1)).longValue()
+        };
+    }
+
+    /* ================= STATISTICS ================= */
+
+    private static void record(String name, Duration actual, Duration ceiling, boolean met) {
+        STATS.computeIfAbsent(name, k -> new WaitStats()).add(actual, ceiling, met);
+        AdaptiveTimeouts.record(name, actual, ceiling, met);
+        StepTimings.record("wait." + name, actual.toNanos());
+    }
+
+    /** Prints one line per wait name: calls, timeouts, average/max actual time and ceiling. */
+    public static void printSummary() {
+        if (STATS.isEmpty()) return;
+        System.out.println("Wait summary (actual vs ceiling):");
+        for (Map.Entry<String, WaitStats> entry : new TreeMap<>(STATS).entrySet()) {
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+        }
+    }
+
+    static class WaitStats {
+
+        private int calls;
+        private int timeouts;
+        private long totalMillis;
+        private long maxMillis;
+        private long ceilingMillis;
+        private long totalCeilingMillis;
+
+        synchronized void add(Duration actual, Duration ceiling, boolean met) {
+            long millis = actual.toMillis();
+            calls++;
+            if (!met) timeouts++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+            ceilingMillis = ceiling.toMillis();
+            totalCeilingMillis += ceilingMillis;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%d calls, %d hit ceiling, avg %d ms, max %d ms, ceiling %d ms (saved %d ms)",
+                    calls, timeouts, totalMillis / calls, maxMillis, ceilingMillis,
+                    totalCeilingMillis - totalMillis);
+        }
+    }
+}
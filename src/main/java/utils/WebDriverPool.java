@@ -0,0 +1,357 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of logged-in browser sessions. Items handed to {@link #process}
+ * are shared out across the sessions (each worker pulls the next unprocessed
+ * item), and the results come back in the original item order.
+ */
+public class WebDriverPool {
+
+    /* ================= ONE BROWSER SESSION ================= */
+
+    public static class Session {
+
+        private final int id;
+        private final WebDriver driver;
+        private final ElementActions actions;
+        private final PopupDataExtractor popUp;
+
+        Session(int id, WebDriver driver) {
+            this.id = id;
+            this.driver = driver;
+            this.actions = new ElementActions(driver);
+            this.popUp = new PopupDataExtractor(driver);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public WebDriver getDriver() {
+            return driver;
+        }
+
+        public ElementActions getActions() {
+            return actions;
+        }
+
+        public PopupDataExtractor getPopUp() {
+            return popUp;
+        }
+
+        /* Leaves whatever page or dialog a failed item left open, so the next item starts clean. */
+        void reset() {
+            try {
+                driver.navigate().to("about:blank");
+            } catch (RuntimeException e) {
+                System.out.println("Failed to reset session " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private final List<Session> sessions = new ArrayList<>();
+    private final ExecutorService executor;
+
+    /**
+     * Starts {@code size} sessions in parallel. The factory must return a driver
+     * that is already logged in.
+     */
+    public WebDriverPool(int size, Supplier<WebDriver> driverFactory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.executor = Executors.newFixedThreadPool(size);
+
+        List<Future<WebDriver>> starting = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            starting.add(executor.submit(driverFactory::get));
+        }
+        Exception failure = null;
+        for (int i = 0; i < size; i++) {
+            try {
+                sessions.add(new Session(i, starting.get(i).get()));
+            } catch (InterruptedException | ExecutionException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) {
+            quit();
+            throw new RuntimeException("Failed to start browser session", failure);
+        }
+        System.out.println("Started " + size + " browser session(s)");
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public Session session(int index) {
+        return sessions.get(index);
+    }
+
+    /* ================= PROCESS ITEMS ACROSS SESSIONS ================= */
+
+    /**
+     * Runs the task for every item, one item per session at a time, and returns
+     * the results in the same order as the items. The first failure stops the
+     * remaining work and is rethrown.
+     */
+    public <T, R> List<R> process(List<T> items, BiFunction<Session, T, R> task) {
+        return process(items, task, result -> { });
+    }
+
+    /**
+     * Same as {@link #process(List, BiFunction)}, and also hands each result to
+     * {@code inOrder} as soon as it and every result before it are finished, so
+     * a caller can persist a growing, correctly ordered prefix while the
+     * remaining items are still running.
+     */
+    public <T, R> List<R> process(List<T> items, BiFunction<Session, T, R> task, Consumer<R> inOrder) {
+        return process(items, task, inOrder, null);
+    }
+
+    /**
+     * Same as {@link #process(List, BiFunction, Consumer)}, but a failing item
+     * does not stop the others. The session is reset to a blank page; a
+     * transient failure is queued and retried after the remaining items, with
+     * a backoff that doubles per attempt (retry.backoff.ms, up to
+     * retry.maxAttempts attempts in all). An item that still fails, or fails
+     * permanently, gets {@code onFailure}'s result in its place.
+     *
+     * <p>A deferred item does not hold back {@code inOrder}: the results after
+     * it are handed on as they finish, and its own result follows whenever its
+     * retry settles. Only retried items arrive out of order, and the returned
+     * list is always in item order, so a caller that streams rows to a file
+     * puts them back in order from it afterwards ({@link CsvAppender#reorder}).</p>
+     */
+    public <T, R> List<R> process(List<T> items, BiFunction<Session, T, R> task, Consumer<R> inOrder,
+                                  BiFunction<T, PostFailure, R> onFailure) {
+
+        InOrder<R> emitter = new InOrder<>(items.size(), inOrder);
+        RetryQueue retries = new RetryQueue(items.size());
+        long start = System.nanoTime();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (Session session : sessions) {
+            workers.add(executor.submit(() -> {
+                try {
+                    int[] next;
+                    while ((next = retries.take()) != null) {
+                        int index = next[0];
+                        int attempt = next[1];
+                        R result;
+                        try {
+                            result = StepTimings.time("post", () -> task.apply(session, items.get(index)));
+                            retries.succeeded(attempt);
+                        } catch (RuntimeException e) {
+                            if (onFailure == null) throw e;
+                            PostFailure failure = new PostFailure(e, attempt);
+                            session.reset();
+                            if (failure.isTransient() && attempt < retries.maxAttempts) {
+                                System.out.println("Item " + (index + 1) + " failed, retrying later: " + failure.getReason());
+                                retries.defer(index, attempt);
+                                emitter.defer(index);
+                                continue;
+                            }
+                            System.out.println("Item " + (index + 1) + " " + failure);
+                            retries.failed(failure);
+                            result = onFailure.apply(items.get(index), failure);
+                        }
+                        emitter.finish(index, result);
+                    }
+                } catch (RuntimeException | Error e) {
+                    retries.abort();   // stop the other workers
+                    throw e;
+                }
+            }));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                retries.abort();
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while processing", e);
+            }
+        }
+        if (failure != null) throw failure;
+
+        double minutes = (System.nanoTime() - start) / 60_000_000_000.0;
+        System.out.printf("Processed %d posts on %d session(s) in %.1fs (%.1f posts/min)%n",
+                items.size(), sessions.size(), minutes * 60,
+                minutes == 0 ? 0 : items.size() / minutes);
+        if (onFailure != null) retries.report();
+
+        return emitter.results();
+    }
+
+    /*
+     * Hands out item indexes with their attempt number: first every item once,
+     * then the deferred ones as their backoff expires. take() blocks while
+     * retries are pending and returns null once every item is settled.
+     */
+    private static class RetryQueue {
+
+        final int maxAttempts = Math.max(1, ConfigReader.getInt("retry.maxAttempts", 3));
+        final long backoffMillis = ConfigReader.getInt("retry.backoff.ms", 5000);
+
+        private final int items;
+        private final PriorityQueue<long[]> deferred = new PriorityQueue<>(Comparator.comparingLong(d -> d[0]));
+        private int next;
+        private int unsettled;
+        private boolean aborted;
+        private int recovered;
+        private int failedTransient;
+        private int failedPermanent;
+
+        RetryQueue(int items) {
+            this.items = items;
+            this.unsettled = items;
+        }
+
+        synchronized int[] take() {
+            while (!aborted) {
+                if (next < items) return new int[]{next++, 1};
+                if (unsettled == 0) return null;
+                long wait = deferred.isEmpty() ? 1000 : deferred.peek()[0] - System.currentTimeMillis();
+                if (!deferred.isEmpty() && wait <= 0) {
+                    long[] retry = deferred.poll();
+                    return new int[]{(int) retry[1], (int) retry[2]};
+                }
+                try {
+                    wait(Math.max(1, wait));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        synchronized void defer(int index, int attempt) {
+            long readyAt = System.currentTimeMillis() + (backoffMillis << Math.min(attempt - 1, 16));
+            deferred.add(new long[]{readyAt, index, attempt + 1});
+            notifyAll();
+        }
+
+        synchronized void succeeded(int attempt) {
+            if (attempt > 1) recovered++;
+            settle();
+        }
+
+        synchronized void failed(PostFailure failure) {
+            if (failure.isTransient()) failedTransient++;
+            else failedPermanent++;
+            settle();
+        }
+
+        private void settle() {
+            unsettled--;
+            notifyAll();
+        }
+
+        synchronized void abort() {
+            aborted = true;
+            notifyAll();
+        }
+
+        synchronized void report() {
+            if (recovered + failedTransient + failedPermanent == 0) return;
+            System.out.println("Retries: " + recovered + " item(s) recovered, " + failedTransient
+                    + " failed after " + maxAttempts + " attempts, " + failedPermanent + " failed permanently");
+            List<String[]> rows = new ArrayList<>();
+            rows.add(new String[]{"Outcome", "Posts"});
+            rows.add(new String[]{"Recovered on retry", Integer.toString(recovered)});
+            rows.add(new String[]{"Failed (transient, " + maxAttempts + " attempts)", Integer.toString(failedTransient)});
+            rows.add(new String[]{"Failed (permanent)", Integer.toString(failedPermanent)});
+            ReportSections.register("Post failures", () -> rows);
+        }
+    }
+
+    /*
+     * Hands results to the consumer in item order as they finish. A deferred
+     * item is stepped over so the results after it are not held up until the
+     * end-of-run retries; it is handed on by itself once it finishes.
+     */
+    private static class InOrder<R> {
+
+        private final Object[] results;
+        private final boolean[] finished;
+        private final boolean[] deferred;
+        private final Consumer<R> consumer;
+        private int emitted;
+
+        InOrder(int items, Consumer<R> consumer) {
+            this.results = new Object[items];
+            this.finished = new boolean[items];
+            this.deferred = new boolean[items];
+            this.consumer = consumer;
+        }
+
+        synchronized void defer(int index) {
+            deferred[index] = true;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void finish(int index, R result) {
+            results[index] = result;
+            finished[index] = true;
+            if (index < emitted) {
+                consumer.accept(result);   // a retried item the others already went past
+            } else {
+                advance();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            while (emitted < results.length && (finished[emitted] || deferred[emitted])) {
+                if (finished[emitted]) consumer.accept((R) results[emitted]);
+                emitted++;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized List<R> results() {
+            return new ArrayList<>((List<R>) Arrays.asList(results));
+        }
+    }
+
+    /* ================= SHUTDOWN ================= */
+
+    public void quit() {
+        for (Session session : sessions) {
+            try {
+                session.driver.quit();
+            } catch (Exception e) {
+                System.out.println("Failed to quit session " + session.id + ": " + e.getMessage());
+            }
+        }
+        sessions.clear();
+        executor.shutdownNow();
+    }
+}
@@ -4,57 +4,172 @@ import org.openqa.selenium.chrome.ChromeDriver;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 public class BaseTest {
 
     protected static WebDriver driver;
     protected static utils.ElementActions actions;
     protected static utils.PopupDataExtractor popUp;
+    protected static utils.WebDriverPool pool;
+    protected static utils.BrowserProfile profile;
+    protected static utils.SessionStore sessionStore;
 
     @BeforeSuite
     public void baseSetup() {
 
-        if (driver == null) {   // important safety check
-            driver = new ChromeDriver();
-            driver.manage().window().maximize();
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+        if (pool == null) {   // important safety check
+            profile = utils.BrowserProfile.fromConfig();
+            utils.PageLoadStats.setProfile(profile.getName());
+            System.out.println("Browser profile: " + profile);
+            if (utils.ConfigReader.getBoolean("session.reuse", true)) {
+                sessionStore = utils.SessionStore.fromConfig();
+            }
 
-            actions = new utils.ElementActions(driver);
-            popUp = new utils.PopupDataExtractor(driver);
+            pool = new utils.WebDriverPool(
+                    utils.ConfigReader.getInt("pool.size", 1),
+                    this::createLoggedInDriver
+            );
 
-            loginToLinkedIn();
+            // first session doubles as the single-driver API
+            driver = pool.session(0).getDriver();
+            actions = pool.session(0).getActions();
+            popUp = pool.session(0).getPopUp();
         }
     }
 
-    protected void loginToLinkedIn() {
+    protected WebDriver createLoggedInDriver() {
+        WebDriver newDriver = new ChromeDriver(profile.toChromeOptions());
+        profile.applyTo(newDriver);
+
+        if (sessionStore != null) {
+            // restore the stored login; the form is used only when it has expired
+            sessionStore.login(newDriver, () -> loginToLinkedIn(newDriver));
+        } else {
+            loginToLinkedIn(newDriver);
+        }
+        return newDriver;
+    }
+
+    protected void loginToLinkedIn(WebDriver driver) {
 
         driver.get(utils.ConfigReader.get("app.url"));
+        utils.WaitEngine waits = new utils.WaitEngine(driver);
 
-        driver.findElement(By.id("username"))
+        waits.require("login.username", By.id("username"), java.time.Duration.ofSeconds(10))
                 .sendKeys(utils.ConfigReader.get("username"));
 
         String decryptedPassword =
                 utils.PasswordDecryptor.decrypt(utils.ConfigReader.get("password"));
 
-        driver.findElement(By.id("password"))
+        waits.require("login.password", By.id("password"), java.time.Duration.ofSeconds(10))
                 .sendKeys(decryptedPassword);
 
-        driver.findElement(By.xpath("//*[@type='submit']")).click();
+        waits.require("login.submit", By.xpath("//*[@type='submit']"), java.time.Duration.ofSeconds(10)).click();
+    }
+
+    protected static boolean isMetaColumn(String column) {
+        return utils.EngagementMatrix.isMetaColumn(column);
+    }
+
+    /**
+     * Marks every roster column YES/NO against the post's engagers, then fills
+     * Yes %, Match Notes (non-exact matches with their confidence), Status and
+     * the execution timestamp.
+     */
+    protected static void markRoster(Map<String, String> row, utils.EngagementMatcher matcher) {
+
+        int yesCount = 0;
+        int totalUsers = 0;
+        List<String> notes = new ArrayList<>();
+
+        for (Map.Entry<String, String> column : row.entrySet()) {
+
+            if (isMetaColumn(column.getKey())) {
+                continue;
+            }
+
+            totalUsers++;
+
+            utils.EngagementMatcher.Match match = matcher.match(column.getKey());
+            column.setValue(match.isMatched() ? "YES" : "NO");
+
+            if (match.isMatched()) {
+                yesCount++;
+                if (!match.isExact()) {
+                    notes.add(String.format("%s ~ %s (%.0f%%)",
+                            column.getKey(), match.getMatchedName(), match.getConfidence() * 100));
+                }
+            }
+        }
+
+        // 🔹 Calculate Yes %
+        double percentage =
+                totalUsers == 0 ? 0 : (yesCount * 100.0) / totalUsers;
+
+        row.put("Yes %", String.format("%.2f%%", percentage));
+        row.put("Match Notes", String.join("; ", notes));
+        row.put(utils.PostFailure.STATUS, utils.PostFailure.OK);
+
+        // 🔹 Add Execution Timestamp (IST) as LAST column
+        row.put(utils.Timestamps.EXECUTED_AT, utils.Timestamps.nowIst());
+    }
+
+    /**
+     * Wraps a per-post task with the checkpoint journal: a post with a fresh
+     * journal record for the same roster is reused without opening the browser,
+     * and every newly finished post is journaled (fsync'd) before it is returned.
+     */
+    protected static BiFunction<utils.WebDriverPool.Session, Map<String, String>, Map<String, String>> checkpointed(
+            utils.CheckpointJournal journal,
+            BiFunction<utils.WebDriverPool.Session, Map<String, String>, Map<String, String>> task) {
+
+        return (session, row) -> {
+            if (journal.reuse(row)) {
+                row.putIfAbsent(utils.PostFailure.STATUS, utils.PostFailure.OK);   // journaled before Status existed
+                return row;
+            }
+
+            String postUrl = row.get("PostUrl");
+            Map<String, String> result = task.apply(session, row);
+            journal.append(postUrl, result);
+            return result;
+        };
+    }
+
+    /**
+     * Pages through the list using the captured API responses and returns the
+     * engager names, or null (no capture, or nothing captured) so the caller
+     * reads the DOM instead.
+     */
+    protected static List<String> capturedNames(utils.NetworkCapture capture, By loadMore, int maxPages) {
+        if (capture == null) return null;
+
+        capture.awaitResponses(1, java.time.Duration.ofSeconds(5));
+        capture.pageThrough(loadMore, maxPages, java.time.Duration.ofSeconds(5));
+
+        List<String> names = capture.getNames();
+        if (names.isEmpty()) {
+            System.out.println("No engagers in the captured responses, reading the DOM");
+            return null;
+        }
+        return names;
     }
 
     @AfterSuite
     public void baseTearDown() {
-        if (driver != null) {
-            driver.quit();
+        utils.WaitEngine.printSummary();
+        utils.AdaptiveTimeouts.save();
+        utils.PageLoadStats.save();
+        utils.StepTimings.export(utils.ConfigReader.get(
+                "timings.file", "src/test/resources/testOutput/StepTimings"));
+        if (pool != null) {
+            pool.quit();
+            pool = null;
             driver = null;
         }
     }
-    public static void customSleep(int seconds){
-        try {
-            Thread.sleep(seconds * 1000L);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
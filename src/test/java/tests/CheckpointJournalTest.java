@@ -0,0 +1,125 @@
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import utils.CheckpointJournal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal replay, including a record torn by a crash in the middle of a
+ * write: mvn test -Dtestng.suite=testng-unit.xml
+ */
+public class CheckpointJournalTest {
+
+    private static final Duration DAY = Duration.ofHours(24);
+
+    private Path file;
+
+    @BeforeMethod
+    public void createFile() throws IOException {
+        file = Files.createTempFile("checkpoint", ".journal");
+        Files.delete(file);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void replaysTheLatestRecordPerPost() {
+        try (CheckpointJournal journal = open(DAY)) {
+            journal.append("p1", row("p1", "NO", "first"));
+            journal.append("p2", row("p2", "YES", "line one\nline \\two\r\n\"quoted\", comma"));
+            journal.append("p1", row("p1", "YES", "second"));
+        }
+
+        try (CheckpointJournal journal = open(DAY)) {
+            Assert.assertEquals(journal.size(), 2);
+            Assert.assertEquals(journal.findFresh("p1").getRow(), row("p1", "YES", "second"));
+            Assert.assertEquals(journal.findFresh("p2").getRow().get("Match Notes"),
+                    "line one\nline \\two\r\n\"quoted\", comma");
+            Assert.assertNull(journal.findFresh("p3"));
+        }
+    }
+
+    @Test
+    public void ignoresATornRecordAndKeepsAppending() throws IOException {
+        try (CheckpointJournal journal = open(DAY)) {
+            journal.append("p1", row("p1", "YES", "kept"));
+            journal.append("p2", row("p2", "YES", "kept"));
+        }
+        // crash while writing a newer record for p1: no end marker, no line break
+        String torn = Files.readAllLines(file, StandardCharsets.UTF_8).get(0);
+        torn = torn.substring(0, torn.length() / 2).replace("kept", "torn");
+        Files.writeString(file, torn, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (CheckpointJournal journal = open(DAY)) {
+            Assert.assertEquals(journal.size(), 2);
+            Assert.assertEquals(journal.findFresh("p1").getRow().get("Match Notes"), "kept");
+            journal.append("p3", row("p3", "NO", "after the crash"));
+        }
+
+        try (CheckpointJournal journal = open(DAY)) {
+            Assert.assertEquals(journal.size(), 3, "the next record starts on its own line");
+            Assert.assertEquals(journal.findFresh("p3").getRow().get("Match Notes"), "after the crash");
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 4);
+    }
+
+    @Test
+    public void ignoresARecordWithoutItsEndMarker() throws IOException {
+        Files.writeString(file, "v1,123,p1,PostUrl,p1\r\nnot a record\r\n", StandardCharsets.UTF_8);
+        try (CheckpointJournal journal = open(DAY)) {
+            Assert.assertEquals(journal.size(), 0);
+        }
+    }
+
+    @Test
+    public void reusesOnlyFreshRecordsThatCoverTheRow() {
+        try (CheckpointJournal journal = open(DAY)) {
+            journal.append("p1", row("p1", "YES", "done"));
+
+            Map<String, String> pending = new LinkedHashMap<>();
+            pending.put("PostUrl", "p1");
+            pending.put("Jane Doe", "");
+            Assert.assertTrue(journal.reuse(pending));
+            Assert.assertEquals(pending.get("Jane Doe"), "YES");
+            Assert.assertEquals(pending.get("Match Notes"), "done", "extra journaled columns are copied");
+
+            Map<String, String> widerRoster = new LinkedHashMap<>();
+            widerRoster.put("PostUrl", "p1");
+            widerRoster.put("Jane Doe", "");
+            widerRoster.put("New Hire", "");
+            Assert.assertFalse(journal.reuse(widerRoster));
+            Assert.assertEquals(widerRoster.get("Jane Doe"), "");
+        }
+
+        try (CheckpointJournal journal = open(Duration.ZERO)) {
+            Assert.assertEquals(journal.size(), 1);
+            Assert.assertNull(journal.findFresh("p1"), "zero freshness never reuses");
+        }
+    }
+
+    private CheckpointJournal open(Duration freshness) {
+        return new CheckpointJournal(file.toString(), freshness);
+    }
+
+    private static Map<String, String> row(String post, String engaged, String notes) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("PostUrl", post);
+        row.put("Jane Doe", engaged);
+        row.put("Match Notes", notes);
+        return row;
+    }
+}
@@ -0,0 +1,139 @@
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import utils.EngagementHistory;
+import utils.EngagementMatrix;
+import utils.PostFailure;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Run history: queries over several runs, and reopening after a crash in the
+ * middle of a write: mvn test -Dtestng.suite=testng-unit.xml
+ */
+public class EngagementHistoryTest {
+
+    private static final int USERS = 70;   // two bitset words
+
+    private Path dir;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("history");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void reportsChangesAndUserRatesAcrossRuns() {
+        try (EngagementHistory history = open()) {
+            history.append(matrix(Map.of("p1", 10, "p2", 20), null));
+            history.append(matrix(Map.of("p1", 12, "p2", 20, "p3", 5), null));
+
+            Assert.assertEquals(history.getRunCount(), 2);
+            List<EngagementHistory.Change> changes = history.changedSinceLastRun("likes");
+            Assert.assertEquals(changes.size(), 1, "p2 is unchanged and p3 is new");
+            Assert.assertEquals(changes.get(0).getPostUrl(), "p1");
+            Assert.assertEquals(changes.get(0).getBefore(), 10);
+            Assert.assertEquals(changes.get(0).getAfter(), 12);
+
+            // user 11 engaged on p1 only in run 2, on p2 in both runs, never on p3
+            Assert.assertEquals(history.userRate("likes", "user 11", 1), 100.0 * 2 / 3, 1e-9);
+            Assert.assertEquals(history.userRate("likes", "user 11", 2), 100.0 * 3 / 5, 1e-9);
+            Assert.assertEquals(history.userRate("likes", "user 69", 2), 0.0);
+            Assert.assertTrue(Double.isNaN(history.userRate("likes", "nobody", 2)));
+            Assert.assertTrue(Double.isNaN(history.userRate("comments", "user 1", 2)));
+        }
+    }
+
+    @Test
+    public void keepsTheLastGoodRecordOfAFailedPost() {
+        try (EngagementHistory history = open()) {
+            history.append(matrix(Map.of("p1", 10, "p2", 20), null));
+            history.append(matrix(Map.of("p1", 10, "p2", 25), "p1"));
+            history.append(matrix(Map.of("p1", 15, "p2", 25), null));
+
+            List<EngagementHistory.Change> changes = history.changedSinceLastRun("likes");
+            Assert.assertEquals(changes.size(), 1);
+            Assert.assertEquals(changes.get(0).getPostUrl(), "p1");
+            Assert.assertEquals(changes.get(0).getBefore(), 10, "compared with run 1; run 2 failed");
+            Assert.assertEquals(changes.get(0).getAfter(), 15);
+        }
+    }
+
+    @Test
+    public void dropsARunThatNeverReachedTheRunLog() throws IOException {
+        try (EngagementHistory history = open()) {
+            history.append(matrix(Map.of("p1", 10, "p2", 20), null));
+            history.append(matrix(Map.of("p1", 11, "p2", 20), null));
+        }
+        long segmentSize = Files.size(dir.resolve("seg-00000.log"));
+        long indexSize = Files.size(dir.resolve("records.idx"));
+
+        // a third run died after writing a record, its index entry, half of the next one and a torn user name
+        Files.write(dir.resolve("seg-00000.log"), new byte[40], StandardOpenOption.APPEND);
+        byte[] entry = new byte[24];
+        entry[3] = 2;   // run 2, which runs.log never got
+        Files.write(dir.resolve("records.idx"), entry, StandardOpenOption.APPEND);
+        Files.write(dir.resolve("records.idx"), new byte[10], StandardOpenOption.APPEND);
+        Files.write(dir.resolve("users.dict"), "half a na".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (EngagementHistory history = open()) {
+            Assert.assertEquals(history.getRunCount(), 2);
+            Assert.assertEquals(Files.size(dir.resolve("seg-00000.log")), segmentSize);
+            Assert.assertEquals(Files.size(dir.resolve("records.idx")), indexSize);
+            Assert.assertEquals(history.changedSinceLastRun("likes").get(0).getAfter(), 11);
+
+            history.append(matrix(Map.of("p1", 13, "p2", 20), null));
+            Assert.assertEquals(history.getRunCount(), 3);
+            Assert.assertEquals(history.changedSinceLastRun("likes").get(0).getBefore(), 11);
+        }
+        Assert.assertTrue(Files.readString(dir.resolve("users.dict")).endsWith("user 69\n"));
+    }
+
+    @Test
+    public void rollsSegmentsAndReadsAcrossThem() {
+        try (EngagementHistory history = new EngagementHistory(dir.toString(), 100)) {
+            for (int run = 0; run < 5; run++) history.append(matrix(Map.of("p1", 10 + run, "p2", 20), null));
+            Assert.assertTrue(Files.exists(dir.resolve("seg-00003.log")), "one record per segment");
+            Assert.assertEquals(history.changedSinceLastRun("likes").get(0).getBefore(), 13);
+        }
+        try (EngagementHistory history = new EngagementHistory(dir.toString(), 100)) {
+            Assert.assertEquals(history.getRunCount(), 5);
+            Assert.assertEquals(history.changedSinceLastRun("likes").get(0).getAfter(), 14);
+        }
+    }
+
+    private EngagementHistory open() {
+        return new EngagementHistory(dir.toString(), 1024 * 1024);
+    }
+
+    /* One "likes" layer: post -> the first N users engaged; {@code failed} is recorded as failed. */
+    private static EngagementMatrix matrix(Map<String, Integer> engaged, String failed) {
+        EngagementMatrix matrix = new EngagementMatrix();
+        for (String post : new java.util.TreeSet<>(engaged.keySet())) {
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("PostUrl", post);
+            row.put("Total", Integer.toString(engaged.get(post)));
+            for (int u = 0; u < USERS; u++) row.put("user " + u, u < engaged.get(post) ? "YES" : "NO");
+            row.put(PostFailure.STATUS, post.equals(failed) ? "FAILED (transient, 3 attempts): x" : PostFailure.OK);
+            matrix.record("likes", row);
+        }
+        return matrix;
+    }
+}
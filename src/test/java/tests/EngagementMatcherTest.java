@@ -0,0 +1,55 @@
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import utils.EngagementMatcher;
+
+import java.util.List;
+
+/**
+ * Roster-to-engager name matching: mvn test -Dtestng.suite=testng-unit.xml
+ */
+public class EngagementMatcherTest {
+
+    private final EngagementMatcher matcher = new EngagementMatcher(
+            List.of("Jane Mary Doe", "José García 🚀", "Anita Kumar"), true, 0.85);
+
+    @Test
+    public void matchesExactlyAfterNormalizing() {
+        EngagementMatcher.Match match = matcher.match("  anita   KUMAR ");
+        Assert.assertEquals(match.getMatchedName(), "Anita Kumar");
+        Assert.assertTrue(match.isExact());
+    }
+
+    @Test
+    public void matchesWithoutAccents() {
+        EngagementMatcher.Match match = matcher.match("Jose Garcia");
+        Assert.assertEquals(match.getMatchedName(), "José García 🚀");
+        Assert.assertEquals(match.getConfidence(), EngagementMatcher.ACCENT_INSENSITIVE);
+    }
+
+    @Test
+    public void matchesAMissingMiddleName() {
+        EngagementMatcher.Match match = matcher.match("Jane Doe");
+        Assert.assertEquals(match.getMatchedName(), "Jane Mary Doe");
+        Assert.assertEquals(match.getConfidence(), EngagementMatcher.TOKEN_SUBSET);
+    }
+
+    @Test
+    public void matchesATypo() {
+        EngagementMatcher.Match match = matcher.match("Anita Kumaar");
+        Assert.assertEquals(match.getMatchedName(), "Anita Kumar");
+        Assert.assertTrue(match.getConfidence() >= 0.85 && !match.isExact());
+    }
+
+    @Test
+    public void doesNotMatchOnOneSharedWordOrOutOfOrder() {
+        Assert.assertFalse(matcher.contains("Jane"));
+        Assert.assertFalse(matcher.contains("Doe Jane"));
+        Assert.assertFalse(matcher.contains("Jane Smith"));
+    }
+
+    @Test
+    public void fuzzyOffMatchesOnlyExactAndAccentFolded() {
+        EngagementMatcher strict = new EngagementMatcher(List.of("Jane Mary Doe"));
+        Assert.assertFalse(strict.contains("Jane Doe"));
+    }
+}
@@ -0,0 +1,97 @@
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import utils.EngagementMatrix;
+import utils.PostFailure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Bit-matrix storage of output rows: mvn test -Dtestng.suite=testng-unit.xml
+ */
+public class EngagementMatrixTest {
+
+    private static final String TYPE = "likes";
+
+    @Test
+    public void keepsEngagementWhenTheRosterWidensPast64And128Users() {
+        EngagementMatrix matrix = new EngagementMatrix();
+
+        // 100 users: rows widen to two longs before the first bits are set
+        matrix.record(TYPE, row("p1", 100, u -> u % 3 == 0, PostFailure.OK));
+        matrix.record(TYPE, row("p2", 100, u -> u >= 60, PostFailure.OK));
+        // a larger roster for another type widens every row to four longs
+        matrix.record("comments", row("p1", 200, u -> u >= 120, PostFailure.OK));
+
+        for (int u = 0; u < 100; u++) {
+            Assert.assertEquals(matrix.engaged(TYPE, "p1", user(u)), u % 3 == 0, "p1 " + user(u));
+            Assert.assertEquals(matrix.engaged(TYPE, "p2", user(u)), u >= 60, "p2 " + user(u));
+        }
+        for (int u = 0; u < 200; u++) {
+            Assert.assertEquals(matrix.engaged("comments", "p1", user(u)), u >= 120, "comments " + user(u));
+        }
+        Assert.assertFalse(matrix.engaged(TYPE, "p1", user(150)), "not on the likes roster");
+
+        Assert.assertEquals(matrix.yesCount(TYPE, "p1"), 34);
+        Assert.assertEquals(matrix.yesCount(TYPE, "p2"), 40);
+        Assert.assertEquals(matrix.yesCount("comments", "p1"), 80);
+        Assert.assertEquals(matrix.postPercent(TYPE, "p2"), 40.0);
+        Assert.assertEquals(matrix.userPercent(TYPE, user(63)), 100.0);
+        Assert.assertEquals(matrix.userPercent(TYPE, user(64)), 50.0);
+        Assert.assertEquals(matrix.row(TYPE, "p2").get(user(99)), "YES");
+    }
+
+    @Test
+    public void rerecordingAPostReplacesItsRow() {
+        EngagementMatrix matrix = new EngagementMatrix();
+        matrix.record(TYPE, row("p1", 10, u -> true, PostFailure.OK));
+        matrix.record(TYPE, row("p1", 10, u -> u < 4, PostFailure.OK));
+
+        Assert.assertEquals(matrix.getPosts(TYPE).size(), 1);
+        Assert.assertEquals(matrix.yesCount(TYPE, "p1"), 4);
+        Assert.assertEquals(matrix.postPercent(TYPE, "p1"), 40.0);
+    }
+
+    @Test
+    public void leavesFailedPostsOutOfTheCounts() {
+        EngagementMatrix matrix = new EngagementMatrix();
+        matrix.record(TYPE, row("p1", 10, u -> u < 5, PostFailure.OK));
+        matrix.record(TYPE, row("p2", 10, u -> u < 5, PostFailure.OK));
+        matrix.record(TYPE, row("p3", 10, u -> false, "FAILED (transient, 3 attempts): timed out"));
+
+        Assert.assertTrue(matrix.isFailed(TYPE, "p3"));
+        Assert.assertEquals(matrix.userPercent(TYPE, user(0)), 100.0, "two collected posts, both engaged");
+        Assert.assertEquals(matrix.userPercent(TYPE, user(9)), 0.0);
+
+        Map<String, String> failed = matrix.row(TYPE, "p3");
+        Assert.assertEquals(failed.get(user(0)), "", "a failed post's cells are unknown, not NO");
+        Assert.assertEquals(failed.get("Yes %"), "");
+        Assert.assertTrue(PostFailure.isFailed(failed));
+
+        Map<String, String> collected = matrix.row(TYPE, "p1");
+        Assert.assertEquals(collected.get(user(0)), "YES");
+        Assert.assertEquals(collected.get(user(9)), "NO");
+        Assert.assertEquals(collected.get("Yes %"), "50.00%");
+
+        // a successful retry brings the post back into the counts
+        matrix.record(TYPE, row("p3", 10, u -> u < 5, PostFailure.OK));
+        Assert.assertFalse(matrix.isFailed(TYPE, "p3"));
+        Assert.assertEquals(matrix.userPercent(TYPE, user(0)), 100.0);
+        Assert.assertEquals(matrix.userPercent(TYPE, user(9)), 0.0);
+        Assert.assertEquals(matrix.yesCount(TYPE, "p3"), 5);
+    }
+
+    private static Map<String, String> row(String post, int users, IntPredicate engaged, String status) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("PostUrl", post);
+        for (int u = 0; u < users; u++) row.put(user(u), engaged.test(u) ? "YES" : "NO");
+        row.put("Yes %", "");
+        row.put(PostFailure.STATUS, status);
+        return row;
+    }
+
+    private static String user(int u) {
+        return "user " + u;
+    }
+}
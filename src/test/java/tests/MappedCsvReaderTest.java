@@ -0,0 +1,85 @@
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.CsvColumns;
+import utils.CsvRow;
+import utils.CsvRowReader;
+import utils.CsvUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The mapped, chunked reader must return exactly what the streaming reader
+ * does, whatever the chunk size: mvn test -Dtestng.suite=testng-unit.xml
+ */
+public class MappedCsvReaderTest {
+
+    private static final int ROWS = 80_000;
+
+    private Path csv;
+
+    @BeforeClass
+    public void writeFile() throws IOException {
+        csv = Files.createTempFile("mapped-csv", ".csv");
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("PostUrl,Name,Note,Total\n");
+            for (int i = 1; i <= ROWS; i++) {
+                String note;
+                if (i == 3) note = "5\" tall";                           // a quote inside an unquoted value
+                else if (i == 50_000) note = "\"multi\nline\"";           // a line break inside a quoted value
+                else if (i % 997 == 0) note = "\"says \"\"hi\"\", twice\""; // escaped quotes and a delimiter
+                else note = i % 2 == 0 ? "YES" : "NO";
+                out.write("https://example.com/post/" + i + ",Name " + i + "," + note + "," + i
+                        + (i % 5 == 0 ? "\r\n" : "\n"));
+            }
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteFile() throws IOException {
+        if (csv != null) Files.deleteIfExists(csv);
+    }
+
+    @Test
+    public void smallChunksMatchTheStreamingReader() {
+        assertSameAsStreaming(CsvUtils.readColumns(csv.toString(), 4096));
+    }
+
+    @Test
+    public void oneChunkMatchesTheStreamingReader() {
+        assertSameAsStreaming(CsvUtils.readColumns(csv.toString(), Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void quotesAreReadLikeTheParserDoes() {
+        CsvColumns columns = CsvUtils.readColumns(csv.toString(), 4096);
+        Assert.assertEquals(columns.get(2, "Note"), "5\" tall");
+        Assert.assertEquals(columns.get(49_999, "Note"), "multi\nline");
+        Assert.assertEquals(columns.get(49_999, "Total"), "50000");
+        Assert.assertEquals(columns.get(996, "Note"), "says \"hi\", twice");
+        Assert.assertEquals(columns.get(ROWS - 1, "Total"), Integer.toString(ROWS));
+    }
+
+    private void assertSameAsStreaming(CsvColumns columns) {
+        List<String[]> expected = new ArrayList<>();
+        try (CsvRowReader reader = CsvUtils.streamCsv(csv.toString())) {
+            Assert.assertEquals(columns.getSchema().headers(), reader.getSchema().headers());
+            for (CsvRow row : reader) expected.add(row.values());
+        }
+        Assert.assertEquals(columns.getRowCount(), expected.size());
+        Assert.assertEquals(columns.getRowCount(), ROWS);
+        int width = columns.getSchema().size();
+        for (int r = 0; r < expected.size(); r++) {
+            for (int c = 0; c < width; c++) {
+                Assert.assertEquals(columns.get(r, c), expected.get(r)[c], "row " + (r + 1) + ", column " + c);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.ElementActions;
+import utils.NetworkCapture;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs network-mode extraction against the local stub page (no LinkedIn login):
+ * mvn test -Dtestng.suite=testng-stub.xml
+ */
+public class NetworkCaptureStubTest {
+
+    private StubServer stub;
+    private WebDriver driver;
+    private ElementActions actions;
+
+    By openBy = By.xpath("//*[@class='social-details-social-counts__social-proof-text']");
+    By showMoreBy = By.cssSelector("button.scaffold-finite-scroll__load-button");
+    By namesBy = By.cssSelector("#reactors li");
+
+    @BeforeClass
+    public void setup() throws Exception {
+        stub = new StubServer();
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        driver = new ChromeDriver(options);
+        actions = new ElementActions(driver);
+    }
+
+    @Test(groups = {"stub"})
+    public void capturesEveryPageFromTheApiResponses() {
+        driver.get(stub.url("/reactions.html"));
+
+        List<String> names;
+        try (NetworkCapture capture = NetworkCapture.start(driver, Pattern.compile("/api/reactions"),
+                List.of("firstName+lastName", "reactorLockup.title.text"))) {
+            Assert.assertNotNull(capture, "DevTools capture should be available on Chrome");
+
+            actions.scrollAndClick(openBy);
+            Assert.assertTrue(capture.awaitResponses(1, Duration.ofSeconds(5)));
+            capture.pageThrough(showMoreBy, 10, Duration.ofSeconds(5));
+
+            Assert.assertTrue(capture.isComplete(), "paging block should mark the last page");
+            Assert.assertEquals(capture.getResponseCount(), 3);
+            names = capture.getNames();
+        }
+
+        Assert.assertEquals(names.size(), 25);
+        Assert.assertEquals(names.get(0), "Anita Kumar");
+        Assert.assertTrue(names.contains("José García"));
+
+        // the same people the DOM shows once rendering has caught up
+        actions.getWaits().until("stub.rendered", Duration.ofSeconds(5),
+                d -> d.findElements(namesBy).size() == 25);
+        Assert.assertEquals(actions.getTexts(namesBy), names);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        if (driver != null) driver.quit();
+        if (stub != null) stub.close();
+    }
+}
@@ -1,20 +1,27 @@
 import org.openqa.selenium.By;
-import org.openqa.selenium.StaleElementReferenceException;
-import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WebDriver;
 import org.testng.annotations.Test;
+import utils.CheckpointJournal;
+import utils.CsvAppender;
 import utils.CsvUtils;
+import utils.ElementActions;
+import utils.EngagementCache;
+import utils.EngagementCollector;
+import utils.EngagementMatcher;
+import utils.NetworkCapture;
+import utils.PageLoadStats;
+import utils.RateGovernor;
+import utils.StepTimings;
+import utils.WebDriverPool;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
 
 import static utils.CsvToHtmlConverter.generateReport;
 
 
-public class PostCommentsTest extends BaseTest {
+public class PostCommentsTest extends BaseTest implements EngagementCollector {
 
     String csvPath = "src/test/resources/testdata/userData.csv";
     String outputCsvPath = "src/test/resources/testOutput/OutputUsersComments.csv";
@@ -23,107 +30,87 @@ public class PostCommentsTest extends BaseTest {
     By showMoreBy = By.xpath("//button[@class='artdeco-button artdeco-button--muted artdeco-button--1 artdeco-button--full artdeco-button--secondary ember-view scaffold-finite-scroll__load-button']");
     By commentsUsersBy = By.xpath("//span[@class='comments-comment-meta__description-title']" );
 
-    List<String> commentsUserList;
-
     @Test(groups = {"comments", "smoke"})
     public void updateCsvGenerically() {
-        CsvUtils.copyCsvFile(csvPath,outputCsvPath);
         List<Map<String, String>> rows = CsvUtils.readCsv(csvPath);
 
-        DateTimeFormatter formatter =
-                DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-
-        for (Map<String, String> row : rows) {
+        // each post's row is journaled as soon as it finishes (so a rerun can
+        // skip it) and flushed to the output once every post before it is done
+        // or waiting for a retry
+        try (CheckpointJournal journal = CheckpointJournal.fromConfig("comments");
+             CsvAppender output = CsvUtils.openAppender(outputCsvPath, false)) {
+            // a failing post is retried at the end and, if it still fails, reported as FAILED
+            List<Map<String, String>> results = pool.process(rows, checkpointed(journal, this::updateRow),
+                    output::append, (row, failure) -> failure.toRow(row));
+            output.reorder(results);   // retried posts were appended late
+        }
+        EngagementCache.shared().save();
 
-            String postUrl = row.get("PostUrl");
-            driver.navigate().to(postUrl);
+        generateReport(outputCsvPath, outputHtml,"Comments with 'Yes %'");
+    }
 
-            actions.scrollAndClick(
-                    By.xpath("(//li[@class='display-flex flex-grow-1 max-full-width']//button)[1]")
-            );
+    private Map<String, String> updateRow(WebDriverPool.Session session, Map<String, String> row) {
+        StepTimings.time("post.navigate", () -> RateGovernor.shared().navigate(session.getDriver(), row.get("PostUrl")));
+        Map<String, String> result = StepTimings.time("collect." + getType(), () -> collect(session, row));
+        PageLoadStats.record(session.getDriver());
+        return result;
+    }
 
-            actions.customSleep(5);
+    @Override
+    public String getType() {
+        return "comments";
+    }
 
-            row.put("Total", getTotalComments());
+    @Override
+    public Map<String, String> collect(WebDriverPool.Session session, Map<String, String> row) {
 
-            actions.scrollNTimes(10);
+        WebDriver driver = session.getDriver();
+        ElementActions actions = session.getActions();
 
-            commentsUserList = getCommentsUserList();
+        String postUrl = row.get("PostUrl");
 
-            int yesCount = 0;
-            int totalUsers = 0;
+        List<String> commentsUserList;
 
-            for (String column : row.keySet()) {
+        // in network mode the comments API responses are captured from the first click
+        try (NetworkCapture capture = NetworkCapture.fromConfig(driver, getType())) {
 
-                if (column.equalsIgnoreCase("PostUrl") ||
-                        column.equalsIgnoreCase("Total") ||
-                        column.equalsIgnoreCase("Yes %") ||
-                        column.equalsIgnoreCase("Executed At (IST)")) {
-                    continue;
-                }
+            actions.scrollAndClick(
+                    By.xpath("(//li[@class='display-flex flex-grow-1 max-full-width']//button)[1]")
+            );
 
-                totalUsers++;
+            actions.getWaits().untilPresent("comments.loaded", commentsUsersBy, Duration.ofSeconds(5));
 
-                boolean commented = isUserCommented(column);
-                row.put(column, commented ? "YES" : "NO");
+            String total = getTotalComments(actions);
+            row.put("Total", total);
 
-                if (commented) {
-                    yesCount++;
+            // same total as last run: reuse the names instead of scrolling the thread
+            EngagementCache cache = EngagementCache.shared();
+            commentsUserList = cache.lookup(postUrl, "comments", total);
+            if (commentsUserList == null) {
+                commentsUserList = capturedNames(capture, showMoreBy, 10);
+                if (commentsUserList == null) {
+                    commentsUserList = getCommentsUserList(actions);
                 }
+                cache.put(postUrl, "comments", total, commentsUserList);
             }
-
-            // 🔹 Calculate Commented %
-            double commentedPercentage =
-                    totalUsers == 0 ? 0 : (yesCount * 100.0) / totalUsers;
-
-            row.put("Yes %", String.format("%.2f%%", commentedPercentage));
-
-            // 🔹 Add Execution Timestamp (IST) as LAST column
-            String istTime = ZonedDateTime
-                    .now(ZoneId.of("Asia/Kolkata"))
-                    .format(formatter);
-
-            row.put("Executed At (IST)", istTime);
         }
 
-        CsvUtils.writeCsv(outputCsvPath, rows);
-        customSleep(5);
-        generateReport(outputCsvPath, outputHtml,"Comments with 'Yes %'");
+        markRoster(row, EngagementMatcher.fromConfig(commentsUserList));
+        return row;
     }
 
 
-
-    private String getTotalComments() {
-        return driver.findElement(
-                By.xpath("(//li[@class='display-flex flex-grow-1 max-full-width']//button)[1]")
+    private String getTotalComments(ElementActions actions) {
+        return actions.getWaits().require("comments.total",
+                By.xpath("(//li[@class='display-flex flex-grow-1 max-full-width']//button)[1]"),
+                Duration.ofSeconds(10)
         ).getText();
     }
 
-    private List<String> getCommentsUserList() {
-
-        List<String> commentedUsers = new LinkedList<>();
-
-        try {
-            List<WebElement> elements = driver.findElements(commentsUsersBy);
-
-            for (WebElement element : elements) {
-                try {
-                    String text = element.getText().trim();
-                    if (!text.isEmpty()) {
-                        commentedUsers.add(text.toLowerCase());
-                    }
-                } catch (StaleElementReferenceException ignored) {
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Failed to get Commented user list: " + e.getMessage());
-        }
-
-       // driver.findElement(By.xpath("//button[@aria-label='Dismiss']")).click();
-        return commentedUsers;
-    }
+    private List<String> getCommentsUserList(ElementActions actions) {
 
-    private boolean isUserCommented(String userName) {
-        return commentsUserList.contains(userName.toLowerCase());
+        // names are collected per batch while loading, keyed by profile link; a failure
+        // propagates so the post is retried instead of being reported as nobody commented
+        return actions.harvestAll("comments", commentsUsersBy, showMoreBy, "href").getNames();
     }
 }
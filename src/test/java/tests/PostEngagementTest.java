@@ -0,0 +1,29 @@
+import org.testng.annotations.Test;
+import utils.CsvUtils;
+import utils.EngagementPipeline;
+
+import java.util.List;
+import java.util.Map;
+
+
+public class PostEngagementTest extends BaseTest {
+
+    String csvPath = "src/test/resources/testdata/userData.csv";
+
+    @Test(groups = {"like", "comments", "repost", "smoke"})
+    public void collectAllEngagements() {
+        List<Map<String, String>> rows = CsvUtils.readCsv(csvPath);
+
+        // one visit per post: likes, comments and reposts are read from the same page,
+        // and each type still gets its own output CSV, journal and report
+        PostLikeTest likes = new PostLikeTest();
+        PostCommentsTest comments = new PostCommentsTest();
+        PostRepostTest reposts = new PostRepostTest();
+
+        new EngagementPipeline(pool)
+                .add(likes, likes.outputCsvPath, likes.outputHtml, "Likes with 'Yes %'")
+                .add(comments, comments.outputCsvPath, comments.outputHtml, "Comments with 'Yes %'")
+                .add(reposts, reposts.outputCsvPath, reposts.outputHtml, "Reposts Report")
+                .run(rows);
+    }
+}
@@ -1,20 +1,27 @@
 import org.openqa.selenium.By;
-import org.openqa.selenium.StaleElementReferenceException;
-import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WebDriver;
 import org.testng.annotations.Test;
+import utils.CheckpointJournal;
+import utils.CsvAppender;
 import utils.CsvUtils;
+import utils.ElementActions;
+import utils.EngagementCache;
+import utils.EngagementCollector;
+import utils.EngagementMatcher;
+import utils.NetworkCapture;
+import utils.PageLoadStats;
+import utils.RateGovernor;
+import utils.StepTimings;
+import utils.WebDriverPool;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
 
 import static utils.CsvToHtmlConverter.generateReport;
 
 
-public class PostLikeTest extends BaseTest {
+public class PostLikeTest extends BaseTest implements EngagementCollector {
 
     String csvPath = "src/test/resources/testdata/userData.csv";
     String outputCsvPath = "src/test/resources/testOutput/OutputUserLikes.csv";
@@ -31,107 +38,98 @@ public class PostLikeTest extends BaseTest {
                     "//div[@class='artdeco-entity-lockup__title ember-view']//span[1]"
     );
 
-    List<String> likedUserList;
+
+    By totalLikesBy = By.xpath(
+            "//*[@class='social-details-reactors-tab__tablist artdeco-tablist artdeco-tablist--no-wrap ember-view']//span[2]"
+    );
 
     @Test(groups = {"like", "smoke"})
     public void updateCsvGenerically() {
-        CsvUtils.copyCsvFile(csvPath,outputCsvPath);
         List<Map<String, String>> rows = CsvUtils.readCsv(csvPath);
 
-        // 🔹 IST timestamp formatter
-        DateTimeFormatter formatter =
-                DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-
-        for (Map<String, String> row : rows) {
-
-            String postUrl = row.get("PostUrl");
-            driver.navigate().to(postUrl);
-
-            actions.scrollAndClick(
-                    By.xpath("//*[@class='social-details-social-counts__social-proof-text']")
-            );
+        // each post's row is journaled as soon as it finishes (so a rerun can
+        // skip it) and flushed to the output once every post before it is done
+        // or waiting for a retry
+        try (CheckpointJournal journal = CheckpointJournal.fromConfig("likes");
+             CsvAppender output = CsvUtils.openAppender(outputCsvPath, false)) {
+            // a failing post is retried at the end and, if it still fails, reported as FAILED
+            List<Map<String, String>> results = pool.process(rows, checkpointed(journal, this::updateRow),
+                    output::append, (row, failure) -> failure.toRow(row));
+            output.reorder(results);   // retried posts were appended late
+        }
+        EngagementCache.shared().save();
 
-            actions.customSleep(5);
+        generateReport(outputCsvPath, outputHtml,"Likes with 'Yes %'");
+    }
 
-            row.put("Total", getTotalLikes());
+    private Map<String, String> updateRow(WebDriverPool.Session session, Map<String, String> row) {
+        StepTimings.time("post.navigate", () -> RateGovernor.shared().navigate(session.getDriver(), row.get("PostUrl")));
+        Map<String, String> result = StepTimings.time("collect." + getType(), () -> collect(session, row));
+        PageLoadStats.record(session.getDriver());
+        return result;
+    }
 
-            actions.scrollUntilItDisappears(showMoreBy, 20);
+    @Override
+    public String getType() {
+        return "likes";
+    }
 
-            likedUserList = getLikedUserList();
+    @Override
+    public Map<String, String> collect(WebDriverPool.Session session, Map<String, String> row) {
 
-            int yesCount = 0;
-            int totalUsers = 0;
+        WebDriver driver = session.getDriver();
+        ElementActions actions = session.getActions();
 
-            for (String column : row.keySet()) {
+        String postUrl = row.get("PostUrl");
 
-                if (column.equalsIgnoreCase("PostUrl") ||
-                        column.equalsIgnoreCase("Total") ||
-                        column.equalsIgnoreCase("Yes %") ||
-                        column.equalsIgnoreCase("Executed At (IST)")) {
-                    continue;
-                }
+        List<String> likedUserList;
 
-                totalUsers++;
+        // in network mode the reactions API responses are captured from the moment the dialog opens
+        try (NetworkCapture capture = NetworkCapture.fromConfig(driver, getType())) {
 
-                boolean liked = isUserLiked(column);
-                row.put(column, liked ? "YES" : "NO");
+            actions.scrollAndClick(
+                    By.xpath("//*[@class='social-details-social-counts__social-proof-text']")
+            );
 
-                if (liked) {
-                    yesCount++;
+            actions.getWaits().untilPresent("likes.dialog", totalLikesBy, Duration.ofSeconds(5));
+
+            String total = getTotalLikes(actions);
+            row.put("Total", total);
+
+            // same total as last run: reuse the names instead of scrolling the dialog
+            EngagementCache cache = EngagementCache.shared();
+            likedUserList = cache.lookup(postUrl, "likes", total);
+            if (likedUserList != null) {
+                session.getPopUp().close();
+            } else {
+                likedUserList = capturedNames(capture, showMoreBy, 20);
+                if (likedUserList != null) {
+                    session.getPopUp().close();
+                } else {
+                    likedUserList = getLikedUserList(session);
                 }
+                cache.put(postUrl, "likes", total, likedUserList);
             }
-
-            // 🔹 Calculate Yes %
-            double likedPercentage =
-                    totalUsers == 0 ? 0 : (yesCount * 100.0) / totalUsers;
-
-            row.put("Yes %", String.format("%.2f%%", likedPercentage));
-
-            // 🔹 Add Execution Timestamp (IST) as LAST column
-            String istTime = ZonedDateTime
-                    .now(ZoneId.of("Asia/Kolkata"))
-                    .format(formatter);
-
-            row.put("Executed At (IST)", istTime);
         }
 
-        CsvUtils.writeCsv(outputCsvPath, rows);
-        customSleep(5);
-        generateReport(outputCsvPath, outputHtml,"Likes with 'Yes %'");
+        markRoster(row, EngagementMatcher.fromConfig(likedUserList));
+        return row;
     }
 
 
-    private String getTotalLikes() {
-        return driver.findElement(
-                By.xpath("//*[@class='social-details-reactors-tab__tablist artdeco-tablist artdeco-tablist--no-wrap ember-view']//span[2]")
-        ).getText();
+    private String getTotalLikes(ElementActions actions) {
+        return actions.getWaits().require("likes.total", totalLikesBy, Duration.ofSeconds(10)).getText();
     }
 
-    private List<String> getLikedUserList() {
-
-        List<String> likedUsers = new LinkedList<>();
+    private List<String> getLikedUserList(WebDriverPool.Session session) {
 
+        // a failure propagates (after closing the dialog) so the post is retried
+        // instead of being reported, and cached, as nobody engaged
         try {
-            List<WebElement> elements = driver.findElements(likedUsersBy);
-
-            for (WebElement element : elements) {
-                try {
-                    String text = element.getText().trim();
-                    if (!text.isEmpty()) {
-                        likedUsers.add(text.toLowerCase());
-                    }
-                } catch (StaleElementReferenceException ignored) {
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Failed to get liked user list: " + e.getMessage());
+            // names are collected per batch while loading, keyed by profile link
+            return session.getActions().harvestAll("likes", likedUsersBy, showMoreBy, "href").getNames();
+        } finally {
+            session.getPopUp().close();
         }
-
-        driver.findElement(By.xpath("//button[@aria-label='Dismiss']")).click();
-        return likedUsers;
-    }
-
-    private boolean isUserLiked(String userName) {
-        return likedUserList.contains(userName.toLowerCase());
     }
 }
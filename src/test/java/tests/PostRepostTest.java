@@ -1,20 +1,27 @@
 import org.openqa.selenium.By;
-import org.openqa.selenium.StaleElementReferenceException;
-import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WebDriver;
 import org.testng.annotations.Test;
+import utils.CheckpointJournal;
+import utils.CsvAppender;
 import utils.CsvUtils;
-
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.LinkedList;
+import utils.ElementActions;
+import utils.EngagementCache;
+import utils.EngagementCollector;
+import utils.EngagementMatcher;
+import utils.NetworkCapture;
+import utils.PageLoadStats;
+import utils.RateGovernor;
+import utils.StepTimings;
+import utils.WebDriverPool;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
 import static utils.CsvToHtmlConverter.generateReport;
 
 
-public class PostRepostTest extends BaseTest {
+public class PostRepostTest extends BaseTest implements EngagementCollector {
 
     String csvPath = "src/test/resources/testdata/userData.csv";
     String outputCsvPath = "src/test/resources/testOutput/OutputUsersRepost.csv";
@@ -24,99 +31,87 @@ public class PostRepostTest extends BaseTest {
     );
     By repostUsersBy = By.xpath("//*[@class='update-components-header__text-view']//a");
     By repostsBtn = By.xpath("(//li[@class='display-flex flex-grow-1 max-full-width']//button)[last()]");
-    List<String> repostsUserList;
 
     @Test(groups = {"like", "repost"})
     public void updateCsvGenerically() {
-        CsvUtils.copyCsvFile(csvPath,outputCsvPath);
         List<Map<String, String>> rows = CsvUtils.readCsv(csvPath);
-        DateTimeFormatter formatter =
-                DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-
-        for (Map<String, String> row : rows) {
-
-            String postUrl = row.get("PostUrl");
-            driver.navigate().to(postUrl);
-            row.put("Total", getTotalRePosts());
-            actions.customSleep(2);
-            actions.scrollAndClick(repostsBtn);
-            actions.customSleep(5);
-
-            actions.scrollUntilItDisappears(showMoreBy,10);
-
-            repostsUserList = getRepostUserList();
-
-            int yesCount = 0;
-            int totalUsers = 0;
 
-            for (String column : row.keySet()) {
+        // each post's row is journaled as soon as it finishes (so a rerun can
+        // skip it) and flushed to the output once every post before it is done
+        // or waiting for a retry
+        try (CheckpointJournal journal = CheckpointJournal.fromConfig("reposts");
+             CsvAppender output = CsvUtils.openAppender(outputCsvPath, false)) {
+            // a failing post is retried at the end and, if it still fails, reported as FAILED
+            List<Map<String, String>> results = pool.process(rows, checkpointed(journal, this::updateRow),
+                    output::append, (row, failure) -> failure.toRow(row));
+            output.reorder(results);   // retried posts were appended late
+        }
+        EngagementCache.shared().save();
 
-                if (column.equalsIgnoreCase("PostUrl") ||
-                        column.equalsIgnoreCase("Total") ||
-                        column.equalsIgnoreCase("Yes %") ||
-                        column.equalsIgnoreCase("Executed At (IST)")) {
-                    continue;
-                }
+        generateReport(outputCsvPath, outputHtml, "Reposts Report");
+    }
 
-                totalUsers++;
+    private Map<String, String> updateRow(WebDriverPool.Session session, Map<String, String> row) {
+        StepTimings.time("post.navigate", () -> RateGovernor.shared().navigate(session.getDriver(), row.get("PostUrl")));
+        Map<String, String> result = StepTimings.time("collect." + getType(), () -> collect(session, row));
+        PageLoadStats.record(session.getDriver());
+        return result;
+    }
 
-                boolean commented = isUserReposted(column);
-                row.put(column, commented ? "YES" : "NO");
+    @Override
+    public String getType() {
+        return "reposts";
+    }
 
-                if (commented) {
-                    yesCount++;
+    @Override
+    public Map<String, String> collect(WebDriverPool.Session session, Map<String, String> row) {
+
+        WebDriver driver = session.getDriver();
+        ElementActions actions = session.getActions();
+
+        String postUrl = row.get("PostUrl");
+        String total = getTotalRePosts(actions);
+        row.put("Total", total);
+
+        // the total is on the post itself, so a cache hit never opens the reposts view
+        EngagementCache cache = EngagementCache.shared();
+        List<String> repostsUserList = cache.lookup(postUrl, "reposts", total);
+        if (repostsUserList == null) {
+            // in network mode the reshares API responses are captured from the click that opens the list
+            try (NetworkCapture capture = NetworkCapture.fromConfig(driver, getType())) {
+                actions.getWaits().untilPageLoaded("reposts.page", Duration.ofSeconds(2));
+                actions.scrollAndClick(repostsBtn);
+                actions.getWaits().untilPresent("reposts.loaded", repostUsersBy, Duration.ofSeconds(5));
+
+                repostsUserList = capturedNames(capture, showMoreBy, 10);
+                if (repostsUserList != null) {
+                    session.getPopUp().close();
+                } else {
+                    repostsUserList = getRepostUserList(session);
                 }
             }
-
-            // 🔹 Calculate Commented %
-            double rePostPercentage =
-                    totalUsers == 0 ? 0 : (yesCount * 100.0) / totalUsers;
-
-            row.put("Yes %", String.format("%.2f%%", rePostPercentage));
-
-            // 🔹 Add Execution Timestamp (IST) as LAST column
-            String istTime = ZonedDateTime
-                    .now(ZoneId.of("Asia/Kolkata"))
-                    .format(formatter);
-
-            row.put("Executed At (IST)", istTime);
+            cache.put(postUrl, "reposts", total, repostsUserList);
         }
 
-        CsvUtils.writeCsv(outputCsvPath, rows);
-        customSleep(5);
-        generateReport(outputCsvPath, outputHtml, "Reposts Report");
+        markRoster(row, EngagementMatcher.fromConfig(repostsUserList));
+        return row;
     }
 
 
-    private String getTotalRePosts() {
-        return driver.findElement(repostsBtn).getText();
+    private String getTotalRePosts(ElementActions actions) {
+        // rendered after the document has loaded
+        return actions.getWaits().require("reposts.total", repostsBtn, Duration.ofSeconds(10)).getText();
     }
 
-    private List<String> getRepostUserList() {
-
-        List<String> repostedUsers = new LinkedList<>();
+    private List<String> getRepostUserList(WebDriverPool.Session session) {
 
+        // a failure propagates (after closing the list) so the post is retried
+        // instead of being reported, and cached, as nobody reposted
         try {
-            List<WebElement> elements = driver.findElements(repostUsersBy);
-
-            for (WebElement element : elements) {
-                try {
-                    String text = element.getText().trim();
-                    if (!text.isEmpty()) {
-                        repostedUsers.add(text.toLowerCase());
-                    }
-                } catch (StaleElementReferenceException ignored) {
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Failed to get Commented user list: " + e.getMessage());
+            // names are collected per batch while loading, keyed by profile link
+            return session.getActions().harvestAll("reposts", repostUsersBy, showMoreBy, "href").getNames();
+        } finally {
+            session.getPopUp().close();
         }
-
-        driver.findElement(By.xpath("//button[@aria-label='Dismiss']")).click();
-        return repostedUsers;
-    }
-
-    private boolean isUserReposted(String userName) {
-        return repostsUserList.contains(userName.toLowerCase());
     }
 }
@@ -0,0 +1,72 @@
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.RateGovernor;
+
+import java.time.Duration;
+
+/**
+ * Navigates the stub post faster than the stub server allows (4 requests per
+ * second) and checks that the governor notices, slows down and still lands
+ * on the real page every time: mvn test -Dtestng.suite=testng-stub.xml
+ */
+public class RateGovernorStubTest {
+
+    private static final int VISITS = 12;
+    private static final double START_RATE = 10;
+
+    private StubServer stub;
+    private WebDriver driver;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        stub = new StubServer();
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        driver = new ChromeDriver(options);
+    }
+
+    @Test(groups = {"stub"})
+    public void backsOffOnTooManyRequests() {
+        stub.throttle(4, Duration.ofSeconds(1), false);
+        RateGovernor governor = visitAll();
+
+        Assert.assertTrue(governor.getSignals().containsKey("interstitial")
+                || governor.getSignals().containsKey("HTTP 429"), "signals: " + governor.getSignals());
+    }
+
+    @Test(groups = {"stub"})
+    public void backsOffOnACheckpointPage() {
+        stub.throttle(4, Duration.ofSeconds(1), true);
+        RateGovernor governor = visitAll();
+
+        Assert.assertTrue(governor.getSignals().containsKey("interstitial"), "signals: " + governor.getSignals());
+    }
+
+    private RateGovernor visitAll() {
+        RateGovernor governor = new RateGovernor().rate(START_RATE).maxRate(START_RATE)
+                .backoff(Duration.ofSeconds(1)).increaseEvery(4);
+        int refusedBefore = stub.getThrottled();
+
+        for (int i = 0; i < VISITS; i++) {
+            governor.navigate(driver, stub.url("/reactions.html"));
+            // a retry after the backoff always gets through the one-second window
+            Assert.assertEquals(driver.getTitle(), "Stub post", "visit " + i);
+        }
+
+        Assert.assertTrue(stub.getThrottled() > refusedBefore, "the stub never throttled");
+        Assert.assertTrue(governor.getRate() < START_RATE, "rate " + governor.getRate());
+        stub.throttle(0, Duration.ZERO, false);
+        return governor;
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        if (driver != null) driver.quit();
+        if (stub != null) stub.close();
+    }
+}
@@ -0,0 +1,76 @@
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.ElementActions;
+import utils.ScrollLoader;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Loads the stub reactions list (10 + 10 + 5, each page rendered late) with the
+ * scroll loader: mvn test -Dtestng.suite=testng-stub.xml
+ */
+public class ScrollLoaderStubTest {
+
+    private StubServer stub;
+    private WebDriver driver;
+    private ElementActions actions;
+
+    By openBy = By.xpath("//*[@class='social-details-social-counts__social-proof-text']");
+    By showMoreBy = By.cssSelector("button.scaffold-finite-scroll__load-button");
+    By namesBy = By.cssSelector("#reactors li");
+    By profileLinksBy = By.cssSelector("#reactors li a");
+
+    @BeforeClass
+    public void setup() throws Exception {
+        stub = new StubServer();
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new");
+        driver = new ChromeDriver(options);
+        actions = new ElementActions(driver);
+    }
+
+    @Test(groups = {"stub"})
+    public void loadsUntilTheCountIsStable() {
+        driver.get(stub.url("/reactions.html"));
+        actions.scrollAndClick(openBy);
+        actions.getWaits().untilPresent("stub.firstPage", namesBy, Duration.ofSeconds(5));
+
+        ScrollLoader.Result result = actions.loadAll("stub", namesBy, showMoreBy);
+
+        Assert.assertEquals(result.getTotal(), 25);
+        Assert.assertEquals(result.getLoadedPerStep(), List.of(10, 5, 0));
+        Assert.assertEquals(result.getStoppedBecause(), "count stable");
+        Assert.assertTrue(result.getElapsedMillis() > 0, "time spent loading is reported");
+        Assert.assertEquals(actions.getTexts(namesBy).size(), 25);
+    }
+
+    @Test(groups = {"stub"})
+    public void harvestsAVirtualizedListWhileScrolling() {
+        // only the last 10 entries stay rendered, so a pass after scrolling would miss 15
+        driver.get(stub.url("/reactions.html?window=10"));
+        actions.scrollAndClick(openBy);
+        actions.getWaits().untilPresent("stub.firstPage", namesBy, Duration.ofSeconds(5));
+
+        ScrollLoader.Result result = actions.harvestAll("stub", profileLinksBy, showMoreBy, "href");
+
+        // the first step reports the page already rendered as well as the one it loaded
+
+        Assert.assertEquals(result.getHarvestedCount(), 25);
+        Assert.assertEquals(result.getNames().size(), 25);
+        Assert.assertEquals(result.getLoadedPerStep(), List.of(20, 5, 0));
+        Assert.assertEquals(actions.getTexts(namesBy).size(), 10);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        if (driver != null) driver.quit();
+        if (stub != null) stub.close();
+    }
+}
@@ -0,0 +1,130 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Local HTTP server for the stub suite. Serves the pages in src/test/resources/stub
+ * and answers /api/<name>?start=N with the canned <name>-N.json.
+ *
+ * <p>{@link #throttle} makes it rate-limit like the real site: past the limit a
+ * request gets a 429 with Retry-After, or a redirect to a /checkpoint/ page.</p>
+ */
+public class StubServer implements AutoCloseable {
+
+    private static final Path ROOT = Paths.get("src/test/resources/stub");
+
+    private final HttpServer server;
+    private final Deque<Long> served = new ArrayDeque<>();
+    private int limit;
+    private long windowNanos;
+    private boolean interstitial;
+    private int throttled;
+
+    public StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Serves at most {@code requests} requests per sliding {@code window}; the
+     * rest are answered with a 429, or with a redirect to a checkpoint page if
+     * {@code interstitial} is set. 0 requests turns throttling off.
+     */
+    public synchronized void throttle(int requests, Duration window, boolean interstitial) {
+        this.limit = requests;
+        this.windowNanos = window.toNanos();
+        this.interstitial = interstitial;
+        served.clear();
+    }
+
+    /** Requests refused so far. */
+    public synchronized int getThrottled() {
+        return throttled;
+    }
+
+    /* True if the request is over the limit (and so not counted as served). */
+    private synchronized boolean overLimit() {
+        if (limit <= 0) return false;
+        long now = System.nanoTime();
+        while (!served.isEmpty() && now - served.peekFirst() >= windowNanos) served.removeFirst();
+        if (served.size() >= limit) {
+            throttled++;
+            return true;
+        }
+        served.addLast(now);
+        return false;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+
+        if (path.startsWith("/checkpoint/")) {
+            send(exchange, 200, "<html><head><title>Security check</title></head><body>Unusual activity</body></html>");
+            return;
+        }
+        if (overLimit()) {
+            if (interstitial) {
+                exchange.getResponseHeaders().set("Location", "/checkpoint/challenge");
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+            } else {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 429, "<html><head><title>Too Many Requests</title></head><body>Slow down</body></html>");
+            }
+            return;
+        }
+
+        Path file;
+        String type;
+        if (path.startsWith("/api/")) {
+            String start = query != null && query.startsWith("start=") ? query.substring(6) : "0";
+            file = ROOT.resolve(path.substring(5) + "-" + start + ".json");
+            type = "application/json; charset=utf-8";
+        } else {
+            file = ROOT.resolve(path.substring(1));
+            type = "text/html; charset=utf-8";
+        }
+
+        if (!file.normalize().startsWith(ROOT) || !Files.isRegularFile(file)) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = Files.readAllBytes(file);
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String html) throws IOException {
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}